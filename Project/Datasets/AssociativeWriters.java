@@ -0,0 +1,109 @@
+/*
+File: AssociativeWriters.java
+Description: 1 BatchWriter for every Associative Entity ReadData populates.
+Each writer is seeded with the pairs its table already has when it is created,
+except when streaming (--memory-mb) where the DB skips the pairs it has. (See BatchWriter)
+Closing it flushes whatever rows are still waiting in each batch.
+
+Collaborators: Jaylin Jack
+ */
+import java.sql.*;
+
+public class AssociativeWriters implements AutoCloseable {
+
+    public final BatchWriter contentActors;
+    public final BatchWriter contentTags;
+    public final BatchWriter genreTags;
+    public final BatchWriter contentCountry;
+    public final BatchWriter contentDirectors;
+    public final BatchWriter contentRelease;
+    public final BatchWriter contentAvailability;
+
+    private final BatchWriter[] all;
+
+    public AssociativeWriters(Connection conn, int batchSize) throws SQLException {
+        this(conn, batchSize, null, false);
+    }
+
+    /*
+        GenreTags rows don't belong to 1 content, so when several writers run at once (I.E. 1 per shard)
+        they share 1 set of GenreTags pairs. That way only 1 writer ever inserts each (genre, tag).
+     */
+    public AssociativeWriters(Connection conn, int batchSize, LongHashSet sharedGenreTags) throws SQLException {
+        this(conn, batchSize, sharedGenreTags, false);
+    }
+
+    // streaming = true keeps no pair in memory. (--memory-mb)
+    public AssociativeWriters(Connection conn, int batchSize, boolean streaming) throws SQLException {
+        this(conn, batchSize, null, streaming);
+    }
+
+    private AssociativeWriters(Connection conn, int batchSize, LongHashSet sharedGenreTags, boolean streaming)
+            throws SQLException {
+        // Only ContentActors, ContentTags & GenreTags have the pair as their primary key.
+        contentActors = writer(conn, "ContentActors", "content", "actor", batchSize, null, streaming, true);
+        contentTags = writer(conn, "ContentTags", "content", "tag", batchSize, null, streaming, true);
+        genreTags = writer(conn, "GenreTags", "genre", "tag", batchSize, sharedGenreTags, streaming, true);
+        contentCountry = writer(conn, "ContentCountry", "content", "country", batchSize, null, streaming, false);
+        contentDirectors = writer(conn, "ContentDirectors", "content", "director", batchSize, null, streaming, false);
+        contentRelease = writer(conn, "Content_Release", "content", "`release`", batchSize, null, streaming, false);
+        contentAvailability = writer(conn, "Content_Availability", "content", "availability", batchSize, null, streaming, false);
+
+        all = new BatchWriter[] {
+                contentActors, contentTags, genreTags, contentCountry,
+                contentDirectors, contentRelease, contentAvailability
+        };
+
+        for (BatchWriter writer : all) {
+            writer.seed();
+        }
+    }
+
+    private static BatchWriter writer(Connection conn, String table, String first, String second, int batchSize,
+                                      LongHashSet shared, boolean streaming, boolean uniquePair) throws SQLException {
+        if (streaming) {
+            return new BatchWriter(conn, table, first, second, batchSize, uniquePair);
+        }
+        return new BatchWriter(conn, table, first, second, batchSize, shared);
+    }
+
+    // Send every waiting row of every table.
+    public void flush() throws SQLException {
+        for (BatchWriter writer : all) {
+            writer.flush();
+        }
+    }
+
+    // The Connection's transaction was committed. (See BatchWriter.committed)
+    public void committed() {
+        for (BatchWriter writer : all) {
+            writer.committed();
+        }
+    }
+
+    // The Connection's transaction was rolled back, forget what every table sent in it. (See BatchWriter.rolledBack)
+    public void rolledBack() throws SQLException {
+        for (BatchWriter writer : all) {
+            writer.rolledBack();
+        }
+    }
+
+    @Override
+    public void close() throws SQLException {
+        SQLException failure = null;
+        for (BatchWriter writer : all) {
+            try {
+                writer.close();
+            } catch (SQLException e) {
+                if (failure == null) {
+                    failure = e;
+                } else {
+                    failure.setNextException(e);
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+}
@@ -0,0 +1,308 @@
+/*
+File: BatchWriter.java
+Description: Gathers (content, other ID) rows for one associative table and sends them to the DB
+in batches with addBatch/executeBatch instead of 1 round trip per row.
+    -> With rewriteBatchedStatements=true in the JDBC URL, MySQL gets 1 multi-row INSERT per flush.
+    -> Pairs already in the table are remembered in memory (seed), so no SELECT is needed per pair.
+    -> Streaming (--memory-mb) remembers nothing, so memory doesn't grow with the rows written.
+       The DB skips the pairs it already has instead (See streamingQuery & mergeQuery).
+
+Collaborators: Jaylin Jack
+ */
+import java.sql.*;
+import java.util.*;
+
+public class BatchWriter implements AutoCloseable {
+
+    private final Connection conn;
+    private final String table;
+    private final String first;
+    private final String second;
+    private final PreparedStatement statement;
+    private final int batchSize;
+
+    // Every pair that is already in the table or queued, packed into 1 long (see LongHashSet.pack).
+    //  -> Replaces the SELECT 1 ... WHERE content = ? AND x = ? that used to run before every INSERT.
+    //  -> When several writers share the set (GenreTags across shards) it is locked while used.
+    //  -> null when streaming.
+    private final LongHashSet written;
+    private final boolean shared;
+    // Streaming into a table without a key on the pair: the batch goes into this TEMPORARY table first,
+    // then merge copies the pairs the table doesn't have yet & clearStage empties it. (See mergeQuery)
+    //  -> null otherwise.
+    private final String stage;
+    private final PreparedStatement merge;
+    private final PreparedStatement clearStage;
+
+    // The pairs of the batch that hasn't been sent yet, so a failed executeBatch can forget them again.
+    //  -> null when streaming, there is nothing to forget.
+    private final long[] queued;
+    private int pending = 0;
+    // The pairs sent since the last commit when autocommit is off, so a rollback can forget them too. (See rolledBack)
+    private long[] uncommitted = new long[0];
+    private int uncommittedCount = 0;
+    private long rowsWritten = 0;
+    private long rowsSkipped = 0;
+    private long flushes = 0;
+
+    public BatchWriter(Connection conn, String table, String first, String second, int batchSize)
+            throws SQLException {
+        this(conn, table, first, second, batchSize, null);
+    }
+
+    // sharedWritten is the set of pairs shared with the other writers of the same table, or null for its own set.
+    public BatchWriter(Connection conn, String table, String first, String second, int batchSize,
+                       LongHashSet sharedWritten) throws SQLException {
+        this.conn = conn;
+        this.written = sharedWritten != null ? sharedWritten : new LongHashSet();
+        this.shared = sharedWritten != null;
+        this.stage = null;
+        this.merge = null;
+        this.clearStage = null;
+        this.table = table;
+        this.first = first;
+        this.second = second;
+        this.batchSize = Math.max(1, batchSize);
+        this.queued = new long[this.batchSize];
+
+        String insertQuery = "INSERT INTO " + table + " (" + first + ", " + second + ") VALUES (?, ?)";
+        this.statement = conn.prepareStatement(insertQuery);
+    }
+
+    /*
+        A writer for streaming (--memory-mb): no set of pairs, seed() reads nothing & every pair is sent.
+        uniquePair says whether (first, second) is the table's primary key.
+     */
+    public BatchWriter(Connection conn, String table, String first, String second, int batchSize, boolean uniquePair)
+            throws SQLException {
+        this.conn = conn;
+        this.written = null;
+        this.shared = false;
+        this.table = table;
+        this.first = first;
+        this.second = second;
+        this.batchSize = Math.max(1, batchSize);
+        this.queued = null;
+
+        if (uniquePair) {
+            this.stage = null;
+            this.merge = null;
+            this.clearStage = null;
+            this.statement = conn.prepareStatement(streamingQuery());
+            return;
+        }
+
+        // Only this Connection sees the TEMPORARY table, & it's gone when the Connection closes.
+        this.stage = "stage_" + table;
+        try (PreparedStatement create = conn.prepareStatement("CREATE TEMPORARY TABLE IF NOT EXISTS " + stage +
+                " (" + first + " INT NOT NULL, " + second + " INT NOT NULL)")) {
+            create.execute();
+        }
+        this.statement = conn.prepareStatement("INSERT INTO " + stage + " (" + first + ", " + second + ") VALUES (?, ?)");
+        this.merge = conn.prepareStatement(mergeQuery());
+        this.clearStage = conn.prepareStatement("DELETE FROM " + stage);
+        // Whatever an earlier writer on the same Connection left behind.
+        clearStage.executeUpdate();
+    }
+
+    /*
+        The INSERT of a streaming writer when (first, second) is the primary key, it skips a pair that is already in
+        the table on the DB side: a duplicate changes nothing (ON DUPLICATE KEY UPDATE, not IGNORE, so a missing
+        foreign key still fails like it should). Rewritten into 1 multi-row INSERT per batch.
+     */
+    private String streamingQuery() {
+        return "INSERT INTO " + table + " (" + first + ", " + second + ") VALUES (?, ?)" +
+                " ON DUPLICATE KEY UPDATE " + first + " = " + first;
+    }
+
+    /*
+        No key on the pair (ContentDirectors, ContentCountry, Content_Release, Content_Availability),
+        so a duplicate can't be skipped by the INSERT itself. Per batch instead:
+            1. The batch goes into the stage table as 1 multi-row INSERT.
+            2. 1 INSERT ... SELECT copies every staged pair the LEFT JOIN finds no row for (DISTINCT drops
+               the pairs queued twice). The foreign key index on 'first' keeps the join short.
+            3. The stage table is emptied.
+        3 round trips per batch instead of 1 INSERT ... WHERE NOT EXISTS per row.
+     */
+    private String mergeQuery() {
+        // '+ 0' turns the Content_Availability ENUM into its index, the same number we stage. (See seed)
+        return "INSERT INTO " + table + " (" + first + ", " + second + ")" +
+                " SELECT DISTINCT staged." + first + ", staged." + second + " FROM " + stage + " staged" +
+                " LEFT JOIN " + table + " existing ON existing." + first + " = staged." + first +
+                " AND existing." + second + " + 0 = staged." + second +
+                " WHERE existing." + first + " IS NULL";
+    }
+
+    /*
+        Remember every pair the table already has, so a re-run against a populated DB
+        doesn't insert them again. 1 streamed SELECT for the whole table.
+     */
+    public void seed() throws SQLException {
+        if (written == null) {
+            return;
+        }
+        // '+ 0' turns the Content_Availability ENUM into its index, the same number we insert.
+        String seedQuery = "SELECT " + first + ", " + second + " + 0 FROM " + table;
+
+        try (PreparedStatement seed = conn.prepareStatement(seedQuery, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            seed.setFetchSize(Integer.MIN_VALUE);
+
+            try (ResultSet result = seed.executeQuery()) {
+                while (result.next()) {
+                    remember(LongHashSet.pack(result.getInt(1), result.getInt(2)));
+                }
+            }
+        }
+    }
+
+    public String getTable() {
+        return table;
+    }
+
+    public long getRowsWritten() {
+        return rowsWritten;
+    }
+
+    public long getRowsSkipped() {
+        return rowsSkipped;
+    }
+
+    public long getFlushes() {
+        return flushes;
+    }
+
+    // Queue 1 row, the batch is sent once it reaches the batch size.
+    // Pairs that are already in the table (or already queued) are skipped without asking the DB.
+    public void add(int first, int second) throws SQLException {
+        if (written != null) {
+            long pair = LongHashSet.pack(first, second);
+            if (!remember(pair)) {
+                rowsSkipped++;
+                return;
+            }
+            queued[pending] = pair;
+        }
+
+        statement.setInt(1, first);
+        statement.setInt(2, second);
+        statement.addBatch();
+        pending++;
+
+        if (pending >= batchSize) {
+            flush();
+        }
+    }
+
+    // Returns true if the pair wasn't remembered yet.
+    private boolean remember(long pair) {
+        if (!shared) {
+            return written.add(pair);
+        }
+        synchronized (written) {
+            return written.add(pair);
+        }
+    }
+
+    // Forget pairs that were remembered but never made it into the table.
+    private void forget(long[] pairs, int count) {
+        if (!shared) {
+            for (int i = 0; i < count; i++) {
+                written.remove(pairs[i]);
+            }
+            return;
+        }
+        synchronized (written) {
+            for (int i = 0; i < count; i++) {
+                written.remove(pairs[i]);
+            }
+        }
+    }
+
+    /*
+        Send every queued row in 1 executeBatch (then merge it, with a stage table).
+        The rows only count as written once that worked. IF it throws:
+            -> The batch is dropped (the driver already cleared it) & its pairs are forgotten,
+               so the set never claims a pair the table doesn't have & a later add() queues it again.
+            -> The exception goes to the caller, same as before.
+     */
+    public void flush() throws SQLException {
+        if (pending == 0) {
+            return;
+        }
+
+        long start = System.nanoTime();
+        int inserted = pending;
+        try {
+            statement.executeBatch();
+            if (stage != null) {
+                inserted = merge.executeUpdate();
+                clearStage.executeUpdate();
+            }
+        } catch (SQLException e) {
+            if (written != null) {
+                forget(queued, pending);
+            }
+            pending = 0;
+            try {
+                statement.clearBatch();
+                if (stage != null) {
+                    clearStage.executeUpdate();
+                }
+            } catch (SQLException clearFailed) {
+                e.addSuppressed(clearFailed);
+            }
+            throw e;
+        }
+        LoaderMetrics.GLOBAL.batch(table, pending, start);
+
+        // Outside a transaction the rows are in for good, inside 1 they're only in once it commits.
+        if (written != null && !conn.getAutoCommit()) {
+            if (uncommittedCount + pending > uncommitted.length) {
+                uncommitted = Arrays.copyOf(uncommitted, Math.max(uncommittedCount + pending, uncommitted.length * 2));
+            }
+            System.arraycopy(queued, 0, uncommitted, uncommittedCount, pending);
+            uncommittedCount += pending;
+        }
+
+        // The pairs the merge found in the table already count as skipped.
+        rowsWritten += inserted;
+        rowsSkipped += pending - inserted;
+        flushes++;
+        pending = 0;
+    }
+
+    // The transaction the rows were sent in was committed, they stay remembered for good.
+    public void committed() {
+        uncommittedCount = 0;
+    }
+
+    /*
+        The transaction was rolled back: forget every pair sent since the last commit & drop the unsent batch,
+        so the set only holds pairs the table really has. (A shared set loses them for every writer)
+     */
+    public void rolledBack() throws SQLException {
+        if (written != null) {
+            forget(uncommitted, uncommittedCount);
+            forget(queued, pending);
+        }
+        uncommittedCount = 0;
+        pending = 0;
+        statement.clearBatch();
+    }
+
+    @Override
+    public void close() throws SQLException {
+        try {
+            flush();
+        } finally {
+            statement.close();
+            if (stage != null) {
+                merge.close();
+                clearStage.close();
+                try (PreparedStatement drop = conn.prepareStatement("DROP TEMPORARY TABLE IF EXISTS " + stage)) {
+                    drop.execute();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,155 @@
+/*
+File: BulkDimensionResolver.java
+Description: Resolves the IDs of many names of 1 table at once (Actor, Tag, Country, Director, Release).
+Instead of SELECT + INSERT for every new name, every name that isn't in the HashMap yet is
+    1. INSERTED with 1 multi-row INSERT per chunk of names.
+    2. Read back with 1 SELECT ... WHERE name IN (...) per chunk & put into the HashMap.
+After this the get*ID_or_INSERT functions find every name in their HashMap.
+
+Each new name is claimed from the table's DimensionResolver first, so 2 threads resolving batches at the same
+time never INSERT the same name twice. A name claimed by another thread is left to it
+(DimensionResolver.resolve waits for its ID later).
+
+Collaborators: Jaylin Jack
+ */
+import java.sql.*;
+import java.util.*;
+
+public class BulkDimensionResolver {
+
+    private final Connection conn;
+    private final String table;
+    private final String nameColumn;
+    private final String idColumn;
+    private final boolean uniqueName;
+    private final int chunkSize;
+
+    /*
+        uniqueName is true when the name column is UNIQUE, so names already in the table are skipped by ON DUPLICATE KEY.
+        `Release` has no UNIQUE on release_date, so only dates missing from the HashMap are inserted.
+        (The HashMaps are preloaded from the DB, so missing from the HashMap means missing from the table.)
+     */
+    public BulkDimensionResolver(Connection conn, String table, String nameColumn, String idColumn,
+                                 boolean uniqueName, int chunkSize) {
+        this.conn = conn;
+        this.table = table;
+        this.nameColumn = nameColumn;
+        this.idColumn = idColumn;
+        this.uniqueName = uniqueName;
+        this.chunkSize = Math.max(1, chunkSize);
+    }
+
+    // Resolve every name that isn't in the map yet (& isn't being resolved by another thread).
+    public void resolve(DimensionResolver resolver, Collection<String> names) {
+        Map<String, Integer> map = resolver.getMap();
+        List<String> unseen = new ArrayList<>();
+        Set<String> queued = new HashSet<>();
+        for (String name : names) {
+            if (!resolver.isResolved(name) && queued.add(name) && resolver.claim(name)) {
+                unseen.add(name);
+                // Missing from the HashMap, the later lookup of the name is then a hit. (See LoaderMetrics)
+                LoaderMetrics.GLOBAL.cacheMiss(resolver.getTable());
+            }
+        }
+
+        try {
+            for (int start = 0; start < unseen.size(); start += chunkSize) {
+                List<String> chunk = unseen.subList(start, Math.min(unseen.size(), start + chunkSize));
+
+                try {
+                    insertChunk(chunk);
+                } catch (SQLException e) {
+                    // I.E. a name too long for the column fails the whole statement.
+                    // Those names stay out of the map and get*ID_or_INSERT handles them 1 at a time.
+                    e.printStackTrace();
+                    continue;
+                }
+
+                try {
+                    readBack(chunk, map);
+                } catch (SQLException e) {
+                    e.printStackTrace();
+                }
+            }
+        } finally {
+            // Hand every claimed name back, resolved or not.
+            for (String name : unseen) {
+                resolver.release(name);
+            }
+        }
+    }
+
+    // 1. INSERT INTO table (name) VALUES (?), (?), ... [ON DUPLICATE KEY UPDATE name = name]
+    private void insertChunk(List<String> chunk) throws SQLException {
+        StringBuilder insertQuery = new StringBuilder("INSERT INTO ").append(table)
+                .append(" (").append(nameColumn).append(") VALUES ");
+        appendPlaceholders(insertQuery, chunk.size(), "(?)");
+        if (uniqueName) {
+            insertQuery.append(" ON DUPLICATE KEY UPDATE ").append(nameColumn).append(" = ").append(nameColumn);
+        }
+
+        try (PreparedStatement insert = conn.prepareStatement(insertQuery.toString())) {
+            for (int i = 0; i < chunk.size(); i++) {
+                bind(insert, i + 1, chunk.get(i));
+            }
+            long start = System.nanoTime();
+            insert.executeUpdate();
+            LoaderMetrics.GLOBAL.batch(metricsTable(), chunk.size(), start);
+        }
+    }
+
+    // Release dates are bound as a DATE (See ReleaseDates), every other name as a String.
+    private void bind(PreparedStatement statement, int index, String name) throws SQLException {
+        if (nameColumn.equals("release_date")) {
+            statement.setDate(index, ReleaseDates.sqlDate(ReleaseDates.parse(name)));
+        } else {
+            statement.setString(index, name);
+        }
+    }
+
+    // 2. SELECT name, id FROM table WHERE name IN (?, ?, ...)
+    private void readBack(List<String> chunk, Map<String, Integer> map) throws SQLException {
+        StringBuilder checkQuery = new StringBuilder("SELECT ").append(nameColumn).append(", ").append(idColumn)
+                .append(" FROM ").append(table).append(" WHERE ").append(nameColumn).append(" IN (");
+        appendPlaceholders(checkQuery, chunk.size(), "?");
+        checkQuery.append(')');
+
+        try (PreparedStatement find = conn.prepareStatement(checkQuery.toString())) {
+            for (int i = 0; i < chunk.size(); i++) {
+                bind(find, i + 1, chunk.get(i));
+            }
+            long start = System.nanoTime();
+            try (ResultSet result = find.executeQuery()) {
+                LoaderMetrics.GLOBAL.roundTrip(metricsTable(), start);
+                while (result.next()) {
+                    map.put(ReadData.DICTIONARY.intern(result.getString(1)), result.getInt(2));
+                }
+            }
+        }
+    }
+
+    // `Release` -> Release, the same name the get*ID_or_INSERT round trips are counted under.
+    private String metricsTable() {
+        return table.replace("`", "");
+    }
+
+    private static void appendPlaceholders(StringBuilder query, int count, String placeholder) {
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                query.append(", ");
+            }
+            query.append(placeholder);
+        }
+    }
+
+    // Every trimmed name after the ID (index 0) of each row of a helper List<List>.
+    public static List<String> namesOf(List<List<String>> helper) {
+        List<String> names = new ArrayList<>();
+        for (List<String> row : helper) {
+            for (int j = 1; j < row.size(); j++) {
+                names.add(row.get(j).trim());
+            }
+        }
+        return names;
+    }
+}
@@ -0,0 +1,407 @@
+/*
+File: BulkLoader.java
+Description: Full reload mode for ReadData (--bulk-load=<staging directory>).
+Meant for a DB freshly built by Databasemodel.sql + InsertsBeforeReadData.sql.
+
+    1. Read & clean every record like main does.
+    2. Give every new name its ID right here in Java (next ID after the largest one already in the table),
+       so nothing has to be asked from the DB while reading.
+    3. Write every row, with its IDs, to 1 tab separated staging file per table.
+    4. LOAD DATA LOCAL INFILE each file, in foreign key order (dimensions, Content, then associative tables).
+
+The JDBC URL needs allowLoadLocalInfile=true, which is added when it isn't there.
+
+LOAD DATA LOCAL acts like IGNORE: a duplicate name or a missing foreign key is only a warning & the row is skipped.
+So:
+    -> Names are matched the way the UNIQUE columns compare them (case & accents don't count, See collationKey),
+       I.E. "Amelie" & "amélie" get 1 ID instead of 2 rows where the 2nd is dropped & every row pointing at it fails.
+    -> Every LOAD DATA that ends with warnings stops the load (the tables before it are already loaded).
+    -> So does 1 that loaded fewer rows than were staged, or whose warnings the driver didn't hand back. (See checkWarnings)
+Only content that isn't in the DB yet is staged, so its associative rows can't be there either.
+GenreTags (not tied to 1 content) & Watch_History are the exceptions, their pairs are read from the DB first. (See seed)
+
+Collaborators: Jaylin Jack
+ */
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.text.Normalizer;
+import java.nio.file.*;
+import java.sql.*;
+import java.util.*;
+import java.util.regex.Pattern;
+
+
+/*
+WORK CITED:
+1. https://dev.mysql.com/doc/refman/8.0/en/load-data.html
+2. https://dev.mysql.com/doc/refman/8.0/en/charset-unicode-sets.html
+*/
+
+public class BulkLoader {
+
+    /*
+        Every staging file in the order it's loaded, with the columns of each line.
+        Dimension tables come first since Content & the associative tables reference them.
+     */
+    private static final String[][] TABLES = {
+            {"Content_Format", "content_formatID, description"},
+            {"Rating", "ratingID, name"},
+            {"Director", "directorID, name"},
+            {"Actor", "actorID, name"},
+            {"Tag", "tagID, description"},
+            {"Country", "countryID, name"},
+            {"`Release`", "releaseID, release_date, version"},
+            {"Content", "contentID, format, title, director, release_year, rating, duration, genre, description"},
+            {"Content_Availability", "content, availability"},
+            {"Watch_History", "content, user"},
+            {"ContentActors", "content, actor"},
+            {"ContentTags", "content, tag"},
+            {"GenreTags", "genre, tag"},
+            {"ContentCountry", "content, country"},
+            {"ContentDirectors", "content, director"},
+            {"Content_Release", "content, `release`"},
+    };
+
+    private final LoaderOptions options;
+    private final DimensionCaches caches;
+    private final Path directory;
+
+    private final Map<String, Writer> files = new HashMap<>();
+
+    // The next free ID of each dimension table (keyed by the HashMap it belongs to).
+    private final Map<Map<String, Integer>, Integer> nextID = new IdentityHashMap<>();
+
+    // The IDs of each dimension table by collationKey (keyed by the HashMap it belongs to).
+    private final Map<Map<String, Integer>, Map<String, Integer>> byKey = new IdentityHashMap<>();
+
+    // Accents left over after NFD splits them off their letter.
+    private static final Pattern ACCENTS = Pattern.compile("\\p{M}+");
+
+    // Warnings shown when a LOAD DATA fails, the rest are only counted.
+    private static final int SHOWN_WARNINGS = 5;
+
+    // Pairs already written per associative table, so the same row isn't loaded twice.
+    private final Map<String, LongHashSet> written = new HashMap<>();
+
+    // Lines written to each staging file, what its LOAD DATA has to report back.
+    private final Map<String, Long> staged = new HashMap<>();
+
+    private long contentRows = 0;
+
+    public BulkLoader(LoaderOptions options, DimensionCaches caches) {
+        this.options = options;
+        this.caches = caches;
+        this.directory = Paths.get(options.bulkLoadDirectory);
+    }
+
+    public void run() {
+        String dbUrl = options.dbUrl;
+        if (!dbUrl.contains("allowLoadLocalInfile")) {
+            dbUrl += (dbUrl.contains("?") ? "&" : "?") + "allowLoadLocalInfile=true";
+        }
+
+        try (Connection conn = JdbcProfiler.wrap(DriverManager.getConnection(dbUrl, options.user, options.password))) {
+            System.out.println("Connected");
+
+            // The names already in the DB keep their IDs, new names start after the largest one.
+            caches.preload(conn);
+            for (Map<String, Integer> map : Arrays.asList(caches.content_format_map, caches.rating_map,
+                    caches.director_map, caches.actor_map, caches.tag_map, caches.country_map, caches.date_map)) {
+                nextID.put(map, map.values().stream().mapToInt(Integer::intValue).max().orElse(0) + 1);
+
+                Map<String, Integer> keys = new HashMap<>();
+                for (Map.Entry<String, Integer> entry : map.entrySet()) {
+                    keys.putIfAbsent(collationKey(entry.getKey()), entry.getValue());
+                }
+                byKey.put(map, keys);
+            }
+            seed(conn);
+
+            Files.createDirectories(directory);
+            for (String[] table : TABLES) {
+                files.put(table[0], Files.newBufferedWriter(stagingFile(table[0]), StandardCharsets.UTF_8));
+            }
+
+            try {
+                stage();
+            } finally {
+                for (Writer file : files.values()) {
+                    file.close();
+                }
+            }
+
+            load(conn);
+        } catch (SQLException | IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private Path stagingFile(String table) {
+        return directory.resolve(table.replace("`", "") + ".tsv");
+    }
+
+    // 1. - 3. Clean every record & write its rows to the staging files.
+    private void stage() throws IOException {
+        CatalogRecord record = new CatalogRecord();
+
+        try (CsvRecordSource reader = ReadData.openRecordSource(options)) {
+            // Skip the header (show_id, type, title ...)
+            reader.next();
+
+            String[] values;
+            while ((values = reader.next()) != null) {
+                ReadData.normalizeRecord(values, record);
+
+                // IF Content contains all key attributes & its contentID isn't in the DB or staged already then stage it.
+                if (record.isComplete() && caches.content_ids.add(record.getContentID())) {
+                    stageRecord(record);
+                }
+                record.clear();
+            }
+        }
+
+        System.out.println("Staged " + contentRows + " content rows in " + directory);
+    }
+
+    private void stageRecord(CatalogRecord record) throws IOException {
+        ContentRecord content = record.content;
+        int contentID = content.contentID;
+
+        // Find the IDs of Format, Director & Rating.
+        content.formatID = id(caches.content_format_map, "Content_Format", content.formatCode);
+        if (content.directorCode != ContentRecord.MISSING) {
+            content.directorID = id(caches.director_map, "Director", content.directorCode);
+        }
+        content.ratingID = id(caches.rating_map, "Rating", content.ratingCode);
+
+        // (contentID, format, title, director, release_year, rating, duration, genre, description)
+        writeLine("Content", String.valueOf(contentID), String.valueOf(content.formatID), content.title,
+                content.hasDirector() ? String.valueOf(content.directorID) : null, String.valueOf(content.releaseYear),
+                String.valueOf(content.ratingID), content.duration, String.valueOf(content.genreID), content.description);
+        writeLine("Content_Availability", String.valueOf(contentID), "available");
+        contentRows++;
+
+        // I just simply want the tester user to watch half the content twice.
+        // Again this is for 11. testing.
+        //      -> Only when the tester user hasn't watched it yet. (See seed)
+        if (contentRows > 4001 && pairs("Watch_History").add(LongHashSet.pack(contentID, 5))) {
+            writeLine("Watch_History", String.valueOf(contentID), "5");
+            writeLine("Watch_History", String.valueOf(contentID), "5");
+        }
+
+        if (record.hasActors()) {
+            for (int j = 0; j < record.actorCodes.size(); j++) {
+                pair("ContentActors", contentID, id(caches.actor_map, "Actor", record.actorCodes.get(j)));
+            }
+        }
+        if (record.hasTags()) {
+            for (int j = 0; j < record.tagCodes.size(); j++) {
+                pair("ContentTags", contentID, id(caches.tag_map, "Tag", record.tagCodes.get(j)));
+            }
+        }
+        if (record.hasGenreTags()) {
+            int genreID = content.genreID;
+            for (int j = 0; j < record.tagCodes.size(); j++) {
+                pair("GenreTags", genreID, id(caches.tag_map, "Tag", record.tagCodes.get(j)));
+            }
+        }
+        if (record.hasCountries()) {
+            for (int j = 0; j < record.countryCodes.size(); j++) {
+                pair("ContentCountry", contentID, id(caches.country_map, "Country", record.countryCodes.get(j)));
+            }
+        }
+        if (record.hasDate()) {
+            for (int j = 0; j < record.dateCodes.size(); j++) {
+                pair("Content_Release", contentID, id(caches.date_map, "`Release`", record.dateCodes.get(j)));
+            }
+        }
+        if (record.hasDirectors()) {
+            for (int j = 0; j < record.directorCodes.size(); j++) {
+                pair("ContentDirectors", contentID, id(caches.director_map, "Director", record.directorCodes.get(j)));
+            }
+        }
+    }
+
+    // The ID of the name with this dictionary code. (See ReadData.DICTIONARY)
+    private int id(Map<String, Integer> map, String table, int code) throws IOException {
+        return id(map, table, ReadData.DICTIONARY.value(code));
+    }
+
+    /*
+        2. The ID of a name, a brand new name gets the next free ID & is staged for its table.
+        Looked up by collationKey so 2 names the DB sees as the same name share 1 ID (the 1st spelling is the one stored).
+     */
+    private int id(Map<String, Integer> map, String table, String name) throws IOException {
+        name = name.trim();
+        Integer id = map.get(name);
+        if (id != null) {
+            return id;
+        }
+
+        Map<String, Integer> keys = byKey.get(map);
+        String key = collationKey(name);
+        id = keys.get(key);
+        if (id != null) {
+            map.put(name, id);
+            return id;
+        }
+
+        id = nextID.get(map);
+        nextID.put(map, id + 1);
+        map.put(name, id);
+        keys.put(key, id);
+
+        if (table.equals("`Release`")) {
+            // (releaseID, release_date, version)
+            writeLine(table, String.valueOf(id), name, "1");
+        } else {
+            writeLine(table, String.valueOf(id), name);
+        }
+        return id;
+    }
+
+    /*
+        A name the way utf8mb4_0900_ai_ci (the default collation) compares it: accents dropped & lower case.
+            -> NFD splits an accented letter into the letter + its accent, the accent is then removed.
+        Close enough for names, the collation also folds a few more (I.E. 'ß' & "ss") which are rare here.
+     */
+    static String collationKey(String name) {
+        String key = Normalizer.normalize(name, Normalizer.Form.NFD);
+        return ACCENTS.matcher(key).replaceAll("").toLowerCase(Locale.ROOT);
+    }
+
+    private void pair(String table, int first, int second) throws IOException {
+        if (pairs(table).add(LongHashSet.pack(first, second))) {
+            writeLine(table, String.valueOf(first), String.valueOf(second));
+        }
+    }
+
+    private LongHashSet pairs(String table) {
+        return written.computeIfAbsent(table, t -> new LongHashSet());
+    }
+
+    /*
+        Remember the pairs already in the tables a re-run could stage again (same as AssociativeWriters does):
+            -> GenreTags: a (genre, tag) of earlier content comes back with new content.
+            -> Watch_History: (content, user), the test rows of content that was watched already.
+        1 streamed SELECT per table.
+     */
+    private void seed(Connection conn) throws SQLException {
+        seed(conn, "GenreTags", "SELECT genre, tag FROM GenreTags");
+        seed(conn, "Watch_History", "SELECT content, user FROM Watch_History");
+    }
+
+    private void seed(Connection conn, String table, String query) throws SQLException {
+        LongHashSet pairs = pairs(table);
+        try (PreparedStatement seed = conn.prepareStatement(query, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            seed.setFetchSize(Integer.MIN_VALUE);
+
+            try (ResultSet result = seed.executeQuery()) {
+                while (result.next()) {
+                    pairs.add(LongHashSet.pack(result.getInt(1), result.getInt(2)));
+                }
+            }
+        }
+    }
+
+    // 3. 1 line of a staging file. null is written as \N, which LOAD DATA reads as NULL.
+    private void writeLine(String table, String... values) throws IOException {
+        Writer file = files.get(table);
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                file.write('\t');
+            }
+            if (values[i] == null) {
+                file.write("\\N");
+            } else {
+                writeEscaped(file, values[i]);
+            }
+        }
+        file.write('\n');
+        staged.merge(table, 1L, Long::sum);
+    }
+
+    // Backslash, tab & newline have to be escaped so they aren't read as separators.
+    private static void writeEscaped(Writer file, String value) throws IOException {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '\\':
+                    file.write("\\\\");
+                    break;
+                case '\t':
+                    file.write("\\t");
+                    break;
+                case '\n':
+                    file.write("\\n");
+                    break;
+                case '\r':
+                    file.write("\\r");
+                    break;
+                default:
+                    file.write(c);
+            }
+        }
+    }
+
+    // 4. LOAD DATA every staging file in foreign key order.
+    private void load(Connection conn) throws SQLException {
+        try (Statement statement = conn.createStatement()) {
+            for (String[] table : TABLES) {
+                String path = stagingFile(table[0]).toAbsolutePath().toString().replace("\\", "\\\\").replace("'", "\\'");
+
+                long start = System.nanoTime();
+                statement.clearWarnings();
+                int rows = statement.executeUpdate(
+                        "LOAD DATA LOCAL INFILE '" + path + "' INTO TABLE " + table[0] +
+                                " CHARACTER SET utf8mb4 FIELDS TERMINATED BY '\\t' LINES TERMINATED BY '\\n' (" + table[1] + ")");
+
+                LoaderMetrics.GLOBAL.batch(table[0], rows, start);
+                checkWarnings(statement, table[0], rows, staged.getOrDefault(table[0], 0L));
+
+                System.out.println(table[0] + ": loaded " + rows + " rows in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+            }
+        }
+    }
+
+    /*
+        A skipped row (duplicate key, missing foreign key, a value cut short ...) is only a warning with LOAD DATA LOCAL,
+        so any warning means the table isn't what was staged -> stop before loading the tables that depend on it.
+        (Connector/J reads them with SHOW WARNINGS)
+        Everything hangs on the driver handing the warnings back, so it's checked too:
+            -> getWarnings() empty but the server counted warnings (SHOW COUNT(*) WARNINGS) -> stop, the driver hides them.
+            -> No warnings but fewer rows than lines staged -> stop, rows went missing without a word.
+     */
+    private static void checkWarnings(Statement statement, String table, int rows, long stagedRows) throws SQLException {
+        SQLWarning warning = statement.getWarnings();
+        if (warning == null) {
+            long serverWarnings = 0;
+            try (ResultSet result = statement.executeQuery("SHOW COUNT(*) WARNINGS")) {
+                if (result.next()) {
+                    serverWarnings = result.getLong(1);
+                }
+            }
+            if (serverWarnings > 0) {
+                throw new SQLException("LOAD DATA into " + table + " ended with " + serverWarnings + " warnings, " +
+                        "but the driver's getWarnings() returned none. Can't tell which rows were skipped, stopping.");
+            }
+            if (rows != stagedRows) {
+                throw new SQLException("LOAD DATA into " + table + " loaded " + rows + " of " + stagedRows +
+                        " staged rows without a warning, stopping.");
+            }
+            return;
+        }
+
+        StringBuilder message = new StringBuilder("LOAD DATA into " + table + " loaded " + rows + " rows with warnings:");
+        int count = 0;
+        for (; warning != null; warning = warning.getNextWarning()) {
+            if (count++ < SHOWN_WARNINGS) {
+                message.append("\n    ").append(warning.getErrorCode()).append(": ").append(warning.getMessage());
+            }
+        }
+        if (count > SHOWN_WARNINGS) {
+            message.append("\n    ... ").append(count - SHOWN_WARNINGS).append(" more");
+        }
+        throw new SQLException(message.toString());
+    }
+}
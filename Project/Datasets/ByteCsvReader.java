@@ -0,0 +1,402 @@
+/*
+File: ByteCsvReader.java
+Description: CSV reader that works on the raw UTF-8 bytes of the file instead of chars (--byte-reader).
+    1. A big block of the file is read into a byte[] & CsvByteScanner finds every ',' & '\n' outside quotes
+       in 1 pass (32/64 bytes at a time when the vector scanner is on).
+    2. nextRecord() walks those positions, a record is then just int[]s of offsets into the byte[].
+    3. Each field is read on demand, straight from the bytes: getInt, getAscii, endsWith ...
+       (& StringDictionary.intern for names), a String only when getString / getTrimmedString is called.
+       next() is every field as a String, like CsvRecordReader.
+A record cut off by the end of the block is moved to the front & scanned again after the next read.
+The byte[] doubles when 1 record doesn't fit.
+
+Same records as CsvRecordReader except a lone '\r' as line end ("\r\n" is fine).
+
+Collaborators: Jaylin Jack
+ */
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+public class ByteCsvReader implements CsvRecordSource {
+
+    // getInt of a value that isn't a number.
+    public static final int NOT_A_NUMBER = -1;
+
+    private final InputStream in;
+    private final CsvByteScanner scanner;
+
+    private byte[] buffer;
+    private int limit = 0;
+    private boolean endOfFile = false;
+    // File offset of buffer[0].
+    private long bufferOffset;
+
+    // 1.
+    private int[] delimiters;
+    private int delimiterCount = 0;
+    private int nextDelimiter = 0;
+
+    // Start of the record after the last one returned.
+    private int recordStart = 0;
+
+    // 2. The raw fields, quotes included.
+    private int[] fieldStarts = new int[16];
+    private int[] fieldEnds = new int[16];
+    private int fieldCount = 0;
+
+    // 3. The values, valueEnds is NOT_SETTLED until the field is asked for.
+    private static final int NOT_SETTLED = -1;
+    private int[] valueStarts = new int[16];
+    private int[] valueEnds = new int[16];
+    private final AsciiView ascii = new AsciiView();
+
+    private long recordNumber = 0;
+
+    public ByteCsvReader(InputStream in, CsvByteScanner scanner) {
+        this(in, scanner, 256 * 1024, 0);
+    }
+
+    // A reader whose InputStream was opened at startOffset bytes into the file (I.E. resuming from a checkpoint).
+    public ByteCsvReader(InputStream in, CsvByteScanner scanner, int bufferSize, long startOffset) {
+        this.in = in;
+        this.scanner = scanner;
+        this.buffer = new byte[bufferSize];
+        this.delimiters = new int[bufferSize];
+        this.bufferOffset = startOffset;
+    }
+
+    public CsvByteScanner getScanner() {
+        return scanner;
+    }
+
+    // Number of records read so far (the header counts as a record).
+    public long getRecordNumber() {
+        return recordNumber;
+    }
+
+    // Byte offset in the file right after the last record read. (Same as CsvRecordReader)
+    public long getByteOffset() {
+        return bufferOffset + recordStart;
+    }
+
+    /*
+        Moves to the next record, its fields are then read with the get*(i) functions.
+        Blank lines are skipped, false once the end of the file is reached.
+     */
+    public boolean nextRecord() throws IOException {
+        while (true) {
+            fieldCount = 0;
+            int fieldStart = recordStart;
+
+            while (nextDelimiter < delimiterCount) {
+                int delimiter = delimiters[nextDelimiter++];
+                if (buffer[delimiter] == ',') {
+                    addField(fieldStart, delimiter);
+                    fieldStart = delimiter + 1;
+                    continue;
+                }
+
+                // '\n', the record is complete.
+                int end = delimiter > fieldStart && buffer[delimiter - 1] == '\r' ? delimiter - 1 : delimiter;
+                recordStart = delimiter + 1;
+                if (fieldCount == 0 && end == fieldStart) {
+                    // Blank line, nothing to return.
+                    fieldStart = recordStart;
+                    continue;
+                }
+                addField(fieldStart, end);
+                recordNumber++;
+                return true;
+            }
+
+            if (endOfFile) {
+                // The last record of a file that doesn't end with '\n'.
+                int end = limit > fieldStart && buffer[limit - 1] == '\r' ? limit - 1 : limit;
+                recordStart = limit;
+                if (fieldCount == 0 && end == fieldStart) {
+                    return false;
+                }
+                addField(fieldStart, end);
+                recordNumber++;
+                return true;
+            }
+
+            // The record goes past the end of the block, read more & look at it again.
+            fill();
+        }
+    }
+
+    public int getFieldCount() {
+        return fieldCount;
+    }
+
+    // The bytes every value offset points into. Only valid until the next nextRecord().
+    public byte[] getBuffer() {
+        return buffer;
+    }
+
+    /*
+        3. The value of field i (quotes & "" escapes removed) is getBuffer()[getValueStart(i), getValueEnd(i)).
+            -> Worked out the 1st time the field is asked for, the fields nobody asks for are never looked at.
+            -> A "..." value is just the bytes between the quotes,
+               1 with "" inside is unescaped in place (it only gets shorter).
+     */
+    public int getValueStart(int field) {
+        settle(field);
+        return valueStarts[field];
+    }
+
+    public int getValueEnd(int field) {
+        settle(field);
+        return valueEnds[field];
+    }
+
+    // The value without leading & trailing spaces, same as String.trim().
+    public int getTrimmedStart(int field) {
+        int start = getValueStart(field);
+        int end = valueEnds[field];
+        while (start < end && isSpace(buffer[start])) {
+            start++;
+        }
+        return start;
+    }
+
+    public int getTrimmedEnd(int field) {
+        int start = getTrimmedStart(field);
+        int end = valueEnds[field];
+        while (end > start && isSpace(buffer[end - 1])) {
+            end--;
+        }
+        return end;
+    }
+
+    public boolean isBlank(int field) {
+        return getTrimmedStart(field) == getTrimmedEnd(field);
+    }
+
+    // Field i as a String. (The same value CsvRecordReader returns)
+    public String getString(int field) {
+        int start = getValueStart(field);
+        return new String(buffer, start, valueEnds[field] - start, StandardCharsets.UTF_8);
+    }
+
+    // Field i as a trimmed String, I.E. getString(i).trim() without the untrimmed String.
+    public String getTrimmedString(int field) {
+        int start = getTrimmedStart(field);
+        return new String(buffer, start, getTrimmedEnd(field) - start, StandardCharsets.UTF_8);
+    }
+
+    /*
+        The digits of the trimmed value after its first 'skip' bytes, read straight from the bytes
+        (I.E. getInt(i, 1) of "s123" is 123). NOT_A_NUMBER when it's empty, has anything but digits or more than 9 of them.
+     */
+    public int getInt(int field, int skip) {
+        int start = getTrimmedStart(field) + skip;
+        int end = getTrimmedEnd(field);
+        if (start >= end || end - start > 9) {
+            return NOT_A_NUMBER;
+        }
+
+        int value = 0;
+        for (int i = start; i < end; i++) {
+            byte b = buffer[i];
+            if (b < '0' || b > '9') {
+                return NOT_A_NUMBER;
+            }
+            value = value * 10 + (b - '0');
+        }
+        return value;
+    }
+
+    // Whether the trimmed value ends with the (ASCII) suffix.
+    public boolean endsWith(int field, String suffix) {
+        int start = getTrimmedStart(field);
+        int end = getTrimmedEnd(field);
+        if (end - start < suffix.length()) {
+            return false;
+        }
+        for (int i = 0, from = end - suffix.length(); i < suffix.length(); i++) {
+            if (buffer[from + i] != suffix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Whether the value has the (ASCII) character c.
+    public boolean contains(int field, char c) {
+        for (int i = getValueStart(field), end = valueEnds[field]; i < end; i++) {
+            if (buffer[i] == c) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /*
+        The value as chars for code that reads a CharSequence (I.E. ReleaseDates.parse), without a String.
+        Each byte is 1 char, so it's only right for ASCII values. The same view is reused for every call.
+     */
+    public CharSequence getAscii(int field) {
+        ascii.start = getValueStart(field);
+        ascii.end = valueEnds[field];
+        return ascii;
+    }
+
+    // Every field of the next record as Strings, null at the end of the file.
+    @Override
+    public String[] next() throws IOException {
+        if (!nextRecord()) {
+            return null;
+        }
+        String[] values = new String[fieldCount];
+        for (int i = 0; i < fieldCount; i++) {
+            values[i] = getString(i);
+        }
+        return values;
+    }
+
+    private void addField(int start, int end) {
+        if (fieldCount == fieldStarts.length) {
+            fieldStarts = Arrays.copyOf(fieldStarts, fieldCount * 2);
+            fieldEnds = Arrays.copyOf(fieldEnds, fieldCount * 2);
+            valueStarts = Arrays.copyOf(valueStarts, fieldCount * 2);
+            valueEnds = Arrays.copyOf(valueEnds, fieldCount * 2);
+        }
+        fieldStarts[fieldCount] = start;
+        fieldEnds[fieldCount] = end;
+        valueEnds[fieldCount] = NOT_SETTLED;
+        fieldCount++;
+    }
+
+    // 3.
+    private void settle(int field) {
+        if (valueEnds[field] != NOT_SETTLED) {
+            return;
+        }
+        int start = fieldStarts[field];
+        int end = fieldEnds[field];
+
+        if (start == end || buffer[start] != '"') {
+            valueStarts[field] = start;
+            valueEnds[field] = end;
+            return;
+        }
+
+        // "..." with no "" inside, the value is just what's between the quotes.
+        int close = end - 1;
+        if (close > start && buffer[close] == '"' && indexOfQuote(start + 1, close) == -1) {
+            valueStarts[field] = start + 1;
+            valueEnds[field] = close;
+            return;
+        }
+
+        valueStarts[field] = start;
+        valueEnds[field] = unquote(start, end);
+    }
+
+    private int indexOfQuote(int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (buffer[i] == '"') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /*
+        The same states as CsvRecordReader, for a quoted field with "" or something after the closing quote.
+        The value is written over the field from 'start' (always behind what's being read), returns where it ends.
+     */
+    private int unquote(int start, int end) {
+        int length = start;
+        boolean quoted = true;
+        boolean quoteInQuoted = false;
+        for (int i = start + 1; i < end; i++) {
+            byte b = buffer[i];
+            if (quoteInQuoted) {
+                quoteInQuoted = false;
+                if (b == '"') {
+                    // "" inside a quoted value is a single quote.
+                    buffer[length++] = '"';
+                    continue;
+                }
+                // The quoted value is closed, whatever follows is kept as is.
+                quoted = false;
+            }
+            if (quoted && b == '"') {
+                quoteInQuoted = true;
+            } else {
+                buffer[length++] = b;
+            }
+        }
+        return length;
+    }
+
+    // Spaces & control characters, not the bytes of a multi-byte UTF-8 character (those are negative).
+    private static boolean isSpace(byte b) {
+        return b >= 0 && b <= ' ';
+    }
+
+    private class AsciiView implements CharSequence {
+        int start;
+        int end;
+
+        @Override
+        public int length() {
+            return end - start;
+        }
+
+        @Override
+        public char charAt(int index) {
+            return (char) (buffer[start + index] & 0xFF);
+        }
+
+        @Override
+        public CharSequence subSequence(int from, int to) {
+            return new String(buffer, start + from, to - from, StandardCharsets.ISO_8859_1);
+        }
+
+        @Override
+        public String toString() {
+            return new String(buffer, start, end - start, StandardCharsets.ISO_8859_1);
+        }
+    }
+
+    /*
+        Keep the unfinished record, read as much as fits after it & scan the whole block again.
+        The record starts outside of quotes, so the scanner starts over from it.
+     */
+    private void fill() throws IOException {
+        int kept = limit - recordStart;
+        if (recordStart == 0 && limit == buffer.length) {
+            // 1 record bigger than the whole block.
+            buffer = Arrays.copyOf(buffer, buffer.length * 2);
+            delimiters = new int[buffer.length];
+        } else {
+            System.arraycopy(buffer, recordStart, buffer, 0, kept);
+        }
+        bufferOffset += recordStart;
+        recordStart = 0;
+        limit = kept;
+
+        while (limit < buffer.length) {
+            int read = in.read(buffer, limit, buffer.length - limit);
+            if (read < 0) {
+                endOfFile = true;
+                break;
+            }
+            limit += read;
+        }
+
+        scanner.reset();
+        delimiterCount = scanner.scan(buffer, 0, limit, delimiters);
+        nextDelimiter = 0;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
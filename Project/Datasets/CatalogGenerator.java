@@ -0,0 +1,397 @@
+/*
+File: CatalogGenerator.java
+Description: Writes a synthetic CSV with the same 12 columns as Data.csv (show_id ... description),
+at any number of rows, so the loader can be tried at 1M - 50M rows instead of ~8.8K.
+
+    java CatalogGenerator --rows=1000000 --out=synthetic.csv
+
+Knobs (all optional):
+    --actors=N / --directors=N / --tags=N / --countries=N   Distinct names of each (cardinality).
+    --cast-mean=M --cast-max=N      Cast list length, geometric around M, cut at N (0 = empty cast).
+    --quoted-newlines=P             Share of descriptions with a line break inside the quotes.
+    --quotes=P                      Share of titles with a "quoted" word, written as "" inside a quoted field.
+    --stray-quotes=P                Share of titles with a '"' in the middle of an unquoted value (I.E. 5'10"),
+                                    written as is like the real catalogs do.
+    --duplicates=P                  Share of rows that repeat an earlier show_id (same content),
+                                    like a re-delivered catalog.
+    --seed=S                        Same seed + same knobs = byte for byte the same file.
+
+Every row is generated from (seed, row number) alone, so nothing is kept in memory & a duplicate
+is rebuilt instead of remembered. Popular names are picked more often than the rest (like real casts).
+Some names, countries & words aren't ASCII (Zoë, Søren, Curaçao, 東京 ...), so the file has 2, 3 & 4 byte UTF-8
+characters for the byte reader to decode, next to the quotes above for the chunk boundaries & scanners.
+
+Collaborators: Jaylin Jack
+ */
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+public class CatalogGenerator {
+
+    private static final String HEADER =
+            "show_id,type,title,director,cast,country,date_added,release_year,rating,duration,listed_in,description";
+
+    private static final String[] MONTHS = {"January", "February", "March", "April", "May", "June", "July",
+            "August", "September", "October", "November", "December"};
+
+    // The ratings of Data.csv.
+    private static final String[] RATINGS = {"TV-MA", "TV-14", "TV-PG", "R", "PG-13", "TV-Y7", "TV-Y", "PG",
+            "TV-G", "NR", "G", "TV-Y7-FV", "NC-17", "UR"};
+
+    private static final String[] FIRST_NAMES = {"Ama", "Kirsten", "Julien", "Sami", "Tracy", "Samuel", "Nabiha",
+            "Sofia", "Salim", "Geert", "Mehdi", "Cindy", "Ryle", "Sello", "Odwa", "Duane", "Patrick", "Natasha",
+            "Arno", "Gail", "Khosi", "Dillon", "Mekaila", "Shamilla", "Xolile", "Getmore", "Thabang", "Greteli",
+            "Vanessa", "Kofi", "Yuki", "Ines", "Rahul", "Mira", "Tomas", "Lena", "Oscar", "Priya", "Hugo", "Aiko",
+            "Zoë", "José", "Björn", "Renée", "Søren", "Łukasz", "Ana Lúcia", "Chloé"};
+
+    private static final String[] LAST_NAMES = {"Johnson", "Qamata", "Ngema", "Mabalane", "Molaba", "Leclercq",
+            "Bouajila", "Gotoas", "Jouy", "Akkari", "Lesaffre", "Kechiouche", "Farihi", "Diombera", "Mahlangu",
+            "Fincham", "Gwanya", "Mathys", "Schultz", "Williams", "Miller", "Mofokeng", "Thahane", "Greeff",
+            "Sithole", "Windvogel", "Tanaka", "Okafor", "Silva", "Kowalski", "Haddad", "Novak", "Moreau", "Rossi",
+            "Larsen", "Kim", "Nguyen", "Garcia", "Singh", "Costa", "Müller", "Núñez", "Çelik", "Ødegaard",
+            "Wójcik", "Đorđević", "Sørensen", "Ibáñez"};
+
+    // A few genres of Data.csv first, then numbered ones.
+    private static final String[] GENRES = {"Documentaries", "International TV Shows", "TV Dramas", "TV Mysteries",
+            "Crime TV Shows", "TV Action & Adventure", "Docuseries", "Reality TV", "Dramas", "Comedies",
+            "Independent Movies", "Thrillers", "Romantic Movies", "Kids' TV", "Horror Movies", "Stand-Up Comedy"};
+
+    private static final String[] COUNTRIES = {"United States", "South Africa", "India", "United Kingdom",
+            "France", "Japan", "South Korea", "Spain", "Mexico", "Canada", "Germany", "Brazil", "Nigeria",
+            "Egypt", "Turkey", "Australia", "Italy", "Argentina", "Indonesia", "Philippines", "Curaçao",
+            "Réunion", "São Tomé and Príncipe"};
+
+    private static final String[] WORDS = {"a", "family", "secret", "city", "young", "detective", "love", "war",
+            "journey", "friends", "mystery", "home", "life", "world", "power", "night", "dream", "team", "star",
+            "story", "town", "heist", "past", "future", "island", "school", "game", "king", "village", "truth",
+            "café", "déjà", "naïve", "fiancée", "東京", "🎬"};
+
+    public long rows = 1_000_000;
+    public String out = "synthetic.csv";
+    public int actors = 40_000;
+    public int directors = 5_000;
+    public int tags = 42;
+    public int countries = 120;
+    public double castMean = 6;
+    public int castMax = 50;
+    public double quotedNewlines = 0.01;
+    public double quotes = 0.02;
+    public double strayQuotes = 0.005;
+    public double duplicates = 0.0;
+    public long seed = 42;
+
+    public static void main(String[] args) throws IOException {
+        CatalogGenerator generator = parse(args);
+
+        long start = System.nanoTime();
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(
+                new FileOutputStream(generator.out), StandardCharsets.UTF_8), 1 << 20)) {
+            generator.write(writer);
+        }
+
+        System.out.printf("Wrote %d rows to %s in %.1f s%n", generator.rows, generator.out,
+                (System.nanoTime() - start) / 1e9);
+    }
+
+    public static CatalogGenerator parse(String[] args) {
+        CatalogGenerator generator = new CatalogGenerator();
+
+        for (String arg : args) {
+            int equals = arg.indexOf('=');
+            if (!arg.startsWith("--") || equals == -1) {
+                throw new IllegalArgumentException("Unknown argument: " + arg);
+            }
+            String name = arg.substring(2, equals);
+            String value = arg.substring(equals + 1);
+
+            switch (name) {
+                case "rows":
+                    generator.rows = Long.parseLong(value);
+                    break;
+                case "out":
+                    generator.out = value;
+                    break;
+                case "actors":
+                    generator.actors = Integer.parseInt(value);
+                    break;
+                case "directors":
+                    generator.directors = Integer.parseInt(value);
+                    break;
+                case "tags":
+                    generator.tags = Integer.parseInt(value);
+                    break;
+                case "countries":
+                    generator.countries = Integer.parseInt(value);
+                    break;
+                case "cast-mean":
+                    generator.castMean = Double.parseDouble(value);
+                    break;
+                case "cast-max":
+                    generator.castMax = Integer.parseInt(value);
+                    break;
+                case "quoted-newlines":
+                    generator.quotedNewlines = Double.parseDouble(value);
+                    break;
+                case "quotes":
+                    generator.quotes = Double.parseDouble(value);
+                    break;
+                case "stray-quotes":
+                    generator.strayQuotes = Double.parseDouble(value);
+                    break;
+                case "duplicates":
+                    generator.duplicates = Double.parseDouble(value);
+                    break;
+                case "seed":
+                    generator.seed = Long.parseLong(value);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option: --" + name);
+            }
+        }
+
+        return generator;
+    }
+
+    // Header + every row.
+    public void write(Writer writer) throws IOException {
+        writer.write(HEADER);
+        writer.write('\n');
+
+        StringBuilder line = new StringBuilder(1024);
+        for (long row = 1; row <= rows; row++) {
+            line.setLength(0);
+            appendRow(line, row);
+            line.append('\n');
+            writer.append(line);
+        }
+    }
+
+    /*
+        1 row of the CSV (no line break).
+            -> A duplicate row is the row of an earlier (non duplicate) row number, show_id included.
+     */
+    public void appendRow(StringBuilder line, long row) {
+        SplittableRandom random = random(row);
+        // The 1st draw of every row decides if it's a duplicate, so an original row is rebuilt the same either way.
+        if (random.nextDouble() < duplicates && row > 1) {
+            // A few tries to land on an original row, the 1st row always is one.
+            long original = 1;
+            for (int i = 0; i < 8; i++) {
+                long candidate = 1 + random.nextLong(row - 1);
+                if (!isDuplicate(candidate)) {
+                    original = candidate;
+                    break;
+                }
+            }
+            row = original;
+            random = random(row);
+            random.nextDouble();
+        }
+        appendOriginal(line, row, random);
+    }
+
+    private boolean isDuplicate(long row) {
+        return random(row).nextDouble() < duplicates && row > 1;
+    }
+
+    // Seeded by the row number, so any row can be rebuilt without the ones before it.
+    private SplittableRandom random(long row) {
+        return new SplittableRandom(seed * 0x9E3779B97F4A7C15L + row);
+    }
+
+    private void appendOriginal(StringBuilder line, long row, SplittableRandom random) {
+        boolean movie = random.nextInt(10) < 7;
+
+        // show_id, type, title
+        line.append('s').append(row).append(',');
+        line.append(movie ? "Movie" : "TV Show").append(',');
+        appendTitle(line, random);
+        line.append(',');
+
+        // director: none for most shows, sometimes 2.
+        if (random.nextInt(10) < (movie ? 9 : 3)) {
+            int count = random.nextInt(20) == 0 ? 2 : 1;
+            appendField(line, names(random, directors, count, false));
+        }
+        line.append(',');
+
+        // cast
+        appendField(line, names(random, actors, castLength(random), true));
+        line.append(',');
+
+        // country: 10% unknown, else 1-3.
+        if (random.nextInt(10) > 0) {
+            appendField(line, pick(random, countries, 1 + geometric(random, 0.5, 2), COUNTRIES, "Country "));
+        }
+        line.append(',');
+
+        // date_added: "September 25, 2021"
+        if (random.nextInt(100) > 0) {
+            appendField(line, MONTHS[random.nextInt(12)] + " " + (1 + random.nextInt(28)) + ", " +
+                    (2008 + random.nextInt(14)));
+        }
+        line.append(',');
+
+        // release_year, rating, duration
+        line.append(1940 + random.nextInt(82)).append(',');
+        if (random.nextInt(1000) > 0) {
+            line.append(RATINGS[skewed(random, RATINGS.length)]);
+        }
+        line.append(',');
+        if (movie) {
+            line.append(60 + random.nextInt(121)).append(" min");
+        } else {
+            int seasons = 1 + geometric(random, 0.6, 15);
+            line.append(seasons).append(seasons == 1 ? " Season" : " Seasons");
+        }
+        line.append(',');
+
+        // listed_in: 1-3 genres
+        appendField(line, pick(random, tags, 1 + geometric(random, 0.5, 2), GENRES, "Genre "));
+        line.append(',');
+
+        // description, sometimes over 2 lines.
+        String description = sentence(random, 12 + random.nextInt(18), false);
+        if (random.nextDouble() < quotedNewlines) {
+            int middle = description.indexOf(' ', description.length() / 2);
+            if (middle != -1) {
+                description = description.substring(0, middle) + "\n" + description.substring(middle + 1);
+            }
+        }
+        appendField(line, description + ".");
+    }
+
+    /*
+        The title, sometimes with quotes in it:
+            -> A "quoted" word, so the whole title is quoted & the quotes are doubled.
+            -> Otherwise a stray 5'10" after the 1st word, NOT quoted. Titles never have a comma or a line break,
+               so the '"' is just a character of the value (the same as CsvRecordReader reads it).
+     */
+    private void appendTitle(StringBuilder line, SplittableRandom random) {
+        String title = sentence(random, 1 + random.nextInt(4), true);
+        double chance = random.nextDouble();
+        if (chance < quotes) {
+            int space = title.indexOf(' ');
+            String word = space == -1 ? title : title.substring(0, space);
+            appendField(line, "\"" + word + "\"" + (space == -1 ? "" : title.substring(space)));
+        } else if (chance < quotes + strayQuotes) {
+            int space = title.indexOf(' ');
+            line.append(space == -1 ? title + " 5'10\"" : title.substring(0, space) + " 5'10\"" + title.substring(space));
+        } else {
+            appendField(line, title);
+        }
+    }
+
+    // Geometric length around castMean, at most castMax.
+    private int castLength(SplittableRandom random) {
+        if (castMean <= 0 || castMax <= 0) {
+            return 0;
+        }
+        return 1 + geometric(random, 1.0 / (1 + castMean), castMax - 1);
+    }
+
+    // Number of failures before a success of chance p, at most max.
+    private static int geometric(SplittableRandom random, double p, int max) {
+        int n = 0;
+        while (n < max && random.nextDouble() >= p) {
+            n++;
+        }
+        return n;
+    }
+
+    // 0 .. n-1, the low numbers picked far more often (the "popular" actors, genres ...).
+    private static int skewed(SplittableRandom random, int n) {
+        double r = random.nextDouble();
+        return (int) (n * r * r * r);
+    }
+
+    // 'count' distinct person names out of 'cardinality', comma separated.
+    private static String names(SplittableRandom random, int cardinality, int count, boolean actors) {
+        if (count == 0 || cardinality <= 0) {
+            return "";
+        }
+        StringBuilder names = new StringBuilder();
+        Set<Integer> picked = new HashSet<>();
+        for (int i = 0; i < count && picked.size() < cardinality; i++) {
+            int index = skewed(random, cardinality);
+            if (!picked.add(index)) {
+                continue;
+            }
+            if (names.length() > 0) {
+                names.append(", ");
+            }
+            // Directors start at a different name, so the 2 lists don't mirror each other.
+            appendPerson(names, actors ? index : index + 7 * FIRST_NAMES.length + 3);
+        }
+        return names.toString();
+    }
+
+    // The index-th name: every first x last name, then the same with a number after it.
+    private static void appendPerson(StringBuilder names, int index) {
+        int combinations = FIRST_NAMES.length * LAST_NAMES.length;
+        names.append(FIRST_NAMES[index % FIRST_NAMES.length]).append(' ')
+                .append(LAST_NAMES[(index / FIRST_NAMES.length) % LAST_NAMES.length]);
+        if (index >= combinations) {
+            names.append(' ').append(index / combinations + 1);
+        }
+    }
+
+    // 'count' distinct values out of 'cardinality': the real ones first, then prefix + number.
+    private static String pick(SplittableRandom random, int cardinality, int count, String[] known, String prefix) {
+        if (cardinality <= 0) {
+            return "";
+        }
+        StringBuilder values = new StringBuilder();
+        Set<Integer> picked = new HashSet<>();
+        for (int i = 0; i < count && picked.size() < cardinality; i++) {
+            int index = skewed(random, cardinality);
+            if (!picked.add(index)) {
+                continue;
+            }
+            if (values.length() > 0) {
+                values.append(", ");
+            }
+            values.append(index < known.length ? known[index] : prefix + (index + 1));
+        }
+        return values.toString();
+    }
+
+    private static String sentence(SplittableRandom random, int words, boolean title) {
+        StringBuilder sentence = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            String word = WORDS[random.nextInt(WORDS.length)];
+            if (i > 0) {
+                sentence.append(' ');
+            }
+            if (title || i == 0) {
+                sentence.append(Character.toUpperCase(word.charAt(0))).append(word, 1, word.length());
+            } else {
+                sentence.append(word);
+            }
+        }
+        return sentence.toString();
+    }
+
+    // RFC 4180: quoted when it has a comma, a quote or a line break, quotes doubled.
+    private static void appendField(StringBuilder line, String value) {
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            line.append(value);
+            return;
+        }
+        line.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                line.append('"');
+            }
+            line.append(c);
+        }
+        line.append('"');
+    }
+}
@@ -0,0 +1,115 @@
+/*
+File: CatalogRecord.java
+Description: Everything ReadData cleaned out of 1 CSV record.
+The typed Content row (See ContentRecord) & the names of each associative list (actors, tags ...),
+kept together so a record can be handed from 1 stage of the loader to the next.
+    -> A name is its StringDictionary code (ReadData.DICTIONARY), so a record carries ints, not Strings.
+       DICTIONARY.value(code) gives the name back when SQL needs it.
+    -> The tags are linked to the content (ContentTags) & to its genre (GenreTags), so they're 1 list.
+    -> A list with no codes has nothing to insert.
+    -> ReadData.resolveAssociations puts the ID of each code in the ID list of its list (actorIDs ...),
+       codes that couldn't be resolved are left out.
+
+Collaborators: Jaylin Jack
+ */
+import java.util.*;
+
+public class CatalogRecord {
+
+    // (id, format, title, director, release_year, rating, duration, genre, description)
+    public final ContentRecord content = new ContentRecord();
+
+    // The dictionary codes of the names of each list. Dates are the code of their YYYY-MM-DD.
+    public final IntList actorCodes = new IntList();
+    public final IntList directorCodes = new IntList();
+    public final IntList tagCodes = new IntList();
+    public final IntList countryCodes = new IntList();
+    public final IntList dateCodes = new IntList();
+
+    // The IDs of the codes above (only the ones that could be resolved).
+    public final IntList actorIDs = new IntList();
+    public final IntList directorIDs = new IntList();
+    public final IntList tagIDs = new IntList();
+    public final IntList countryIDs = new IntList();
+    public final IntList releaseIDs = new IntList();
+
+    // A growable int[], so a code or an ID never has to be a String (or an Integer).
+    public static class IntList {
+        private int[] values = new int[8];
+        private int size = 0;
+
+        public void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        public int get(int index) {
+            return values[index];
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public void clear() {
+            size = 0;
+        }
+    }
+
+    // IF Content contains all key attributes then it can be inserted.
+    public boolean isComplete() {
+        return content.isComplete();
+    }
+
+    public int getContentID() {
+        return content.contentID;
+    }
+
+    /*
+        Which associative lists are worth inserting (same checks main always did before adding to the helpers).
+     */
+
+    // There's a weird case where one of the values for actor is the description.
+    // So if an actor's name is greater than 100 skip it.
+    public boolean hasActors() {
+        return actorCodes.size() > 0 && ReadData.DICTIONARY.value(actorCodes.get(0)).length() < 100;
+    }
+
+    public boolean hasTags() {
+        return tagCodes.size() > 0;
+    }
+
+    // GenreTags links the same tags to the genre of the content.
+    public boolean hasGenreTags() {
+        return tagCodes.size() > 0 && content.genreID != ContentRecord.MISSING;
+    }
+
+    public boolean hasCountries() {
+        return countryCodes.size() > 0;
+    }
+
+    public boolean hasDate() {
+        return dateCodes.size() > 0;
+    }
+
+    public boolean hasDirectors() {
+        return directorCodes.size() > 0;
+    }
+
+    // EMPTY all lists so the record can be reused for the next line.
+    public void clear() {
+        content.clear();
+        actorCodes.clear();
+        directorCodes.clear();
+        tagCodes.clear();
+        countryCodes.clear();
+        dateCodes.clear();
+        actorIDs.clear();
+        directorIDs.clear();
+        tagIDs.clear();
+        countryIDs.clear();
+        releaseIDs.clear();
+    }
+}
@@ -0,0 +1,162 @@
+/*
+File: ConnectionPool.java
+Description: A fixed number of Connections shared by the tasks of VirtualThreadLoader.
+    -> borrow() hands out an idle Connection, opens a new one while there are fewer than --pool-size,
+       and otherwise waits until a task gives one back.
+    -> Waiting only parks the virtual thread, so thousands of waiting tasks cost next to nothing.
+    -> Each Connection keeps its own AssociativeWriters for as long as the pool is open.
+Counts how often & how long tasks waited, so the pool size can be tuned from the summary printed at close.
+
+Not a javax.sql.DataSource: the loader has nothing on its classpath but the MySQL driver (no HikariCP ...),
+and a Lease also carries the writers of its Connection, which a DataSource can't hand out.
+Waiting in borrow() is an ArrayBlockingQueue (a ReentrantLock), it never pins a virtual thread.
+Talking to MySQL can: Connector/J 8.x reads & writes the socket inside synchronized blocks, so a task pins its carrier
+for as long as it's in a JDBC call. At most --pool-size tasks hold a Connection, so that's also the most carriers
+pinned at once (I.E. keep it near the number of cores). Connector/J 9.0+ uses ReentrantLock there instead.
+
+Collaborators: Jaylin Jack
+ */
+import java.sql.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+public class ConnectionPool implements AutoCloseable {
+
+    private final LoaderOptions options;
+    private final int size;
+
+    // GenreTags pairs shared by every Connection's writers, like the shards of IngestPipeline.
+    private final LongHashSet genreTagsWritten = new LongHashSet();
+
+    private final BlockingQueue<Lease> idle;
+    private final Queue<Lease> all = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger opened = new AtomicInteger();
+
+    // Instrumentation.
+    private final LongAdder borrows = new LongAdder();
+    private final LongAdder waits = new LongAdder();
+    private final LongAdder waitNanos = new LongAdder();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+    private final AtomicInteger inUse = new AtomicInteger();
+    private final AtomicInteger peakInUse = new AtomicInteger();
+
+    // 1 pooled Connection. Closing the Lease gives the Connection back to the pool.
+    public class Lease implements AutoCloseable {
+        private final Connection conn;
+        private AssociativeWriters writers;
+
+        private Lease(Connection conn) {
+            this.conn = conn;
+        }
+
+        public Connection connection() {
+            return conn;
+        }
+
+        // Created the first time they're needed (seeding reads each associative table once per Connection).
+        public AssociativeWriters writers() throws SQLException {
+            if (writers == null) {
+                writers = new AssociativeWriters(conn, options.batchSize, genreTagsWritten);
+            }
+            return writers;
+        }
+
+        @Override
+        public void close() {
+            inUse.decrementAndGet();
+            idle.add(this);
+        }
+    }
+
+    public ConnectionPool(LoaderOptions options) {
+        this.options = options;
+        this.size = Math.max(1, options.poolSize);
+        this.idle = new ArrayBlockingQueue<>(size);
+    }
+
+    public Lease borrow() throws SQLException, InterruptedException {
+        borrows.increment();
+
+        Lease lease = idle.poll();
+        if (lease == null && opened.incrementAndGet() <= size) {
+            try {
+                lease = new Lease(JdbcProfiler.wrap(
+                        DriverManager.getConnection(options.dbUrl, options.user, options.password)));
+            } catch (SQLException e) {
+                opened.decrementAndGet();
+                throw e;
+            }
+            all.add(lease);
+        } else if (lease == null) {
+            opened.decrementAndGet();
+
+            // Every Connection is busy, wait for one.
+            long start = System.nanoTime();
+            lease = idle.take();
+            long waited = System.nanoTime() - start;
+            waits.increment();
+            waitNanos.add(waited);
+            maxWaitNanos.accumulateAndGet(waited, Math::max);
+        }
+
+        peakInUse.accumulateAndGet(inUse.incrementAndGet(), Math::max);
+        return lease;
+    }
+
+    public long getBorrows() {
+        return borrows.sum();
+    }
+
+    public long getWaits() {
+        return waits.sum();
+    }
+
+    public long getWaitNanos() {
+        return waitNanos.sum();
+    }
+
+    public int getOpened() {
+        return Math.min(size, opened.get());
+    }
+
+    public int getInUse() {
+        return inUse.get();
+    }
+
+    public int getPeakInUse() {
+        return peakInUse.get();
+    }
+
+    // Flush & close every Connection's writers & statements, then the Connections, and print the counts.
+    @Override
+    public void close() throws SQLException {
+        SQLException failure = null;
+        for (Lease lease : all) {
+            try {
+                try {
+                    if (lease.writers != null) {
+                        lease.writers.close();
+                    }
+                    StatementRegistry.release(lease.conn);
+                } finally {
+                    lease.conn.close();
+                }
+            } catch (SQLException e) {
+                if (failure == null) {
+                    failure = e;
+                } else {
+                    failure.setNextException(e);
+                }
+            }
+        }
+
+        System.out.println("Pool: " + getOpened() + "/" + size + " connections, " + getBorrows() + " borrows, " +
+                getWaits() + " waits (" + getWaitNanos() / 1_000_000 + " ms total, " +
+                maxWaitNanos.get() / 1_000_000 + " ms max), peak " + getPeakInUse() + " in use");
+
+        if (failure != null) {
+            throw failure;
+        }
+    }
+}
@@ -0,0 +1,134 @@
+/*
+File: ContentIdBitmap.java
+Description: The set of contentIDs already in the Content table, kept in memory so insertContent
+never has to ask the DB whether a Content exists.
+
+Compressed the same way a Roaring bitmap is:
+    -> IDs are split by their high 16 bits into containers of up to 65536 IDs.
+    -> A container with few IDs is a sorted char[] of the low 16 bits (2 bytes per ID).
+    -> Once it holds more than 4096 IDs it becomes a 65536 bit bitmap (8KB, the size of 4096 chars).
+So the ~9000 contentIDs of the CSV take about 18KB, and a dense range of IDs never takes more than 1 bit per ID.
+
+Collaborators: Jaylin Jack
+ */
+import java.sql.*;
+import java.util.*;
+
+public class ContentIdBitmap {
+
+    // Largest array container, past this a bitmap is smaller.
+    private static final int ARRAY_LIMIT = 4096;
+
+    // High 16 bits of each container (sorted), the container & how many IDs it holds.
+    private int[] keys = new int[4];
+    private Object[] containers = new Object[4];
+    private int[] cardinalities = new int[4];
+    private int containerCount = 0;
+
+    private long size = 0;
+
+    // Fill the bitmap with every contentID in the Content table (streamed, like the HashMaps are preloaded).
+    public void preload(Connection conn) {
+        try (PreparedStatement preload = conn.prepareStatement("SELECT contentID FROM Content",
+                ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            preload.setFetchSize(Integer.MIN_VALUE);
+
+            try (ResultSet result = preload.executeQuery()) {
+                while (result.next()) {
+                    add(result.getInt(1));
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
+    // Returns false if the ID was already in the set.
+    public synchronized boolean add(int id) {
+        int key = id >>> 16;
+        char low = (char) id;
+
+        int index = findContainer(key);
+        if (index < 0) {
+            index = -index - 1;
+            insertContainer(index, key);
+        }
+
+        Object container = containers[index];
+        if (container instanceof long[]) {
+            long[] bits = (long[]) container;
+            long mask = 1L << low;
+            if ((bits[low >>> 6] & mask) != 0) {
+                return false;
+            }
+            bits[low >>> 6] |= mask;
+        } else {
+            char[] values = (char[]) container;
+            int cardinality = cardinalities[index];
+            int position = Arrays.binarySearch(values, 0, cardinality, low);
+            if (position >= 0) {
+                return false;
+            }
+            position = -position - 1;
+
+            if (cardinality == ARRAY_LIMIT) {
+                // Too many IDs for an array, switch to a bitmap.
+                long[] bits = new long[1024];
+                for (int i = 0; i < cardinality; i++) {
+                    bits[values[i] >>> 6] |= 1L << values[i];
+                }
+                bits[low >>> 6] |= 1L << low;
+                containers[index] = bits;
+            } else {
+                if (cardinality == values.length) {
+                    values = Arrays.copyOf(values, Math.min(ARRAY_LIMIT, values.length * 2));
+                    containers[index] = values;
+                }
+                System.arraycopy(values, position, values, position + 1, cardinality - position);
+                values[position] = low;
+            }
+        }
+
+        cardinalities[index]++;
+        size++;
+        return true;
+    }
+
+    public synchronized boolean contains(int id) {
+        int index = findContainer(id >>> 16);
+        if (index < 0) {
+            return false;
+        }
+
+        char low = (char) id;
+        Object container = containers[index];
+        if (container instanceof long[]) {
+            return (((long[]) container)[low >>> 6] & (1L << low)) != 0;
+        }
+        return Arrays.binarySearch((char[]) container, 0, cardinalities[index], low) >= 0;
+    }
+
+    public synchronized long size() {
+        return size;
+    }
+
+    private int findContainer(int key) {
+        return Arrays.binarySearch(keys, 0, containerCount, key);
+    }
+
+    private void insertContainer(int index, int key) {
+        if (containerCount == keys.length) {
+            keys = Arrays.copyOf(keys, containerCount * 2);
+            containers = Arrays.copyOf(containers, containerCount * 2);
+            cardinalities = Arrays.copyOf(cardinalities, containerCount * 2);
+        }
+        System.arraycopy(keys, index, keys, index + 1, containerCount - index);
+        System.arraycopy(containers, index, containers, index + 1, containerCount - index);
+        System.arraycopy(cardinalities, index, cardinalities, index + 1, containerCount - index);
+
+        keys[index] = key;
+        containers[index] = new char[4];
+        cardinalities[index] = 0;
+        containerCount++;
+    }
+}
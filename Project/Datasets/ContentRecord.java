@@ -0,0 +1,133 @@
+/*
+File: ContentRecord.java
+Description: 1 row of the Content table, typed the same way as its columns.
+    -> IDs, the release year & the genre are ints (bound with setInt).
+    -> A Content without a director has NO_DIRECTOR (bound with setNull).
+    -> Format, Director & Rating are read as dictionary codes of their names first (See StringDictionary),
+       resolveContent in ReadData fills in their IDs.
+    -> The duration keeps its text for the VARCHAR column & is also read as a number + unit ("90 min", "2 Seasons"),
+       so it can be compared or summed without parsing the text again.
+
+Collaborators: Jaylin Jack
+ */
+import java.sql.*;
+
+public class ContentRecord {
+
+    // Every ID in the DB starts at 1.
+    public static final int NO_DIRECTOR = 0;
+    public static final int MISSING = -1;
+
+    // INSERT column order, used by every statement that binds a ContentRecord.
+    public static final String COLUMNS = "contentID, format, title, director, release_year, rating, duration, genre, description";
+
+    public int contentID = MISSING;
+    public int formatID = MISSING;
+    public int directorID = NO_DIRECTOR;
+    public int releaseYear = MISSING;
+    public int ratingID = MISSING;
+    public int genreID = MISSING;
+    public String title;
+    public String description;
+
+    // The duration as it's stored ("90 min") & read as a number. (See setDuration)
+    public String duration;
+    public int durationLength = MISSING;
+    public boolean durationInSeasons = false;
+
+    // Dictionary codes of the names from the CSV (MISSING = none), swapped for their IDs by resolveContent.
+    public int formatCode = MISSING;
+    public int directorCode = MISSING;
+    public int ratingCode = MISSING;
+
+    // IF Content contains all key attributes then it can be inserted (the director may be missing).
+    public boolean isComplete() {
+        return contentID != MISSING && (formatCode != MISSING || formatID != MISSING) && title != null &&
+                releaseYear != MISSING && (ratingCode != MISSING || ratingID != MISSING) && duration != null &&
+                genreID != MISSING && description != null;
+    }
+
+    public boolean hasDirector() {
+        return directorCode != MISSING || directorID != NO_DIRECTOR;
+    }
+
+    /*
+        "90 min" -> 90 minutes, "2 Seasons" -> 2 seasons.
+        Anything else keeps its text only (durationLength stays MISSING).
+     */
+    public void setDuration(String value) {
+        duration = value;
+        durationLength = MISSING;
+        durationInSeasons = false;
+
+        int i = 0;
+        int length = 0;
+        while (i < value.length() && value.charAt(i) >= '0' && value.charAt(i) <= '9') {
+            length = length * 10 + (value.charAt(i++) - '0');
+        }
+        if (i == 0 || i == value.length() || value.charAt(i) != ' ') {
+            return;
+        }
+
+        if (value.startsWith("min", i + 1)) {
+            durationLength = length;
+        } else if (value.startsWith("Season", i + 1)) {
+            durationLength = length;
+            durationInSeasons = true;
+        }
+    }
+
+    // Bind the 9 columns (in COLUMNS order) starting at parameter 'first'.
+    public void bind(PreparedStatement statement, int first) throws SQLException {
+        statement.setInt(first, contentID);
+        statement.setInt(first + 1, formatID);
+        statement.setString(first + 2, title);
+        if (directorID == NO_DIRECTOR) {
+            statement.setNull(first + 3, Types.INTEGER);
+        } else {
+            statement.setInt(first + 3, directorID);
+        }
+        statement.setInt(first + 4, releaseYear);
+        statement.setInt(first + 5, ratingID);
+        statement.setString(first + 6, duration);
+        statement.setInt(first + 7, genreID);
+        statement.setString(first + 8, description);
+    }
+
+    // A copy, since the CatalogRecord this belongs to is reused for the next line.
+    public ContentRecord copy() {
+        ContentRecord copy = new ContentRecord();
+        copy.contentID = contentID;
+        copy.formatID = formatID;
+        copy.directorID = directorID;
+        copy.releaseYear = releaseYear;
+        copy.ratingID = ratingID;
+        copy.genreID = genreID;
+        copy.title = title;
+        copy.description = description;
+        copy.duration = duration;
+        copy.durationLength = durationLength;
+        copy.durationInSeasons = durationInSeasons;
+        copy.formatCode = formatCode;
+        copy.directorCode = directorCode;
+        copy.ratingCode = ratingCode;
+        return copy;
+    }
+
+    public void clear() {
+        contentID = MISSING;
+        formatID = MISSING;
+        directorID = NO_DIRECTOR;
+        releaseYear = MISSING;
+        ratingID = MISSING;
+        genreID = MISSING;
+        title = null;
+        description = null;
+        duration = null;
+        durationLength = MISSING;
+        durationInSeasons = false;
+        formatCode = MISSING;
+        directorCode = MISSING;
+        ratingCode = MISSING;
+    }
+}
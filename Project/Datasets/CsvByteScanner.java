@@ -0,0 +1,123 @@
+/*
+File: CsvByteScanner.java
+Description: Finds where the fields & records of raw UTF-8 CSV bytes end, for ByteCsvReader.
+Every ',' & '\n' outside of quotes is a delimiter, scan() puts their positions in an int[].
+    -> The same 4 states as CsvRecordReader (& ParallelCsvReader): only a '"' at the start of a field opens quotes,
+       one in the middle of an unquoted value (I.E. 5'10") is a plain character.
+    -> The state carries over to the next scan(), reset() at the start of a record.
+    -> ',' '"' '\n' are ASCII & never part of a multi-byte UTF-8 character, so bytes can be compared as is.
+
+2 versions:
+    -> This one, 1 byte at a time.
+    -> VectorCsvScanner (vector/VectorCsvScanner.java), 32 or 64 bytes at a time with jdk.incubator.vector.
+create() hands out the vector one when it can be loaded, I.E. compiled & the JVM started with
+    --add-modules jdk.incubator.vector
+and this one otherwise. It's loaded by name so the rest of the loader compiles & runs without the incubator module.
+
+Collaborators: Jaylin Jack
+ */
+import java.lang.invoke.*;
+
+public class CsvByteScanner {
+
+    // The states of CsvRecordReader.
+    protected static final int FIELD_START = 0;
+    protected static final int UNQUOTED = 1;
+    protected static final int QUOTED = 2;
+    protected static final int QUOTE_IN_QUOTED = 3;
+
+    // The state after the last byte of the last scan().
+    protected int state = FIELD_START;
+
+    // new VectorCsvScanner(), or null when it can't be loaded. Looked up once.
+    private static final MethodHandle VECTOR = findVector();
+
+    /*
+        The scanner create() hands out:
+            -> "auto" (or null), the vector scanner when it's available, otherwise this one.
+            -> "scalar", always this one.
+     */
+    public static CsvByteScanner create(String kind) {
+        if (kind == null || kind.equals("auto")) {
+            if (VECTOR != null) {
+                try {
+                    return (CsvByteScanner) VECTOR.invoke();
+                } catch (Throwable e) {
+                    throw new IllegalStateException("Couldn't create VectorCsvScanner", e);
+                }
+            }
+            return new CsvByteScanner();
+        }
+        if (kind.equals("scalar")) {
+            return new CsvByteScanner();
+        }
+        throw new IllegalArgumentException("Unknown scanner: " + kind + " (auto or scalar)");
+    }
+
+    public static boolean isVectorAvailable() {
+        return VECTOR != null;
+    }
+
+    private static MethodHandle findVector() {
+        try {
+            Class<?> type = Class.forName("VectorCsvScanner", true, CsvByteScanner.class.getClassLoader());
+            return MethodHandles.publicLookup().findConstructor(type, MethodType.methodType(void.class));
+        } catch (ReflectiveOperationException | LinkageError e) {
+            // Not compiled, or compiled but the JVM wasn't started with the incubator module.
+            return null;
+        }
+    }
+
+    /*
+        Puts the position of every ',' & '\n' outside quotes in buffer[from, to) into delimiters (in order)
+        & returns how many there are. delimiters needs room for (to - from) positions.
+     */
+    public int scan(byte[] buffer, int from, int to, int[] delimiters) {
+        return scanBytes(buffer, from, to, delimiters, 0);
+    }
+
+    // The next record starts outside of quotes.
+    public void reset() {
+        state = FIELD_START;
+    }
+
+    // For the "Reading ... with" line, I.E. "scalar" or "vector (32 byte lanes)".
+    public String getName() {
+        return "scalar";
+    }
+
+    // 1 byte at a time, the delimiters are added after the first 'count'. (Also the tail of VectorCsvScanner)
+    protected final int scanBytes(byte[] buffer, int from, int to, int[] delimiters, int count) {
+        int state = this.state;
+        for (int i = from; i < to; i++) {
+            byte b = buffer[i];
+            // Letters & digits are all above ',' so most bytes are 1 comparison (& the state of a plain character).
+            if (b > ',') {
+                if (state != QUOTED) {
+                    state = UNQUOTED;
+                }
+                continue;
+            }
+            if (b == '"') {
+                // Opens at the start of a field, "" inside quotes, kept as is in an unquoted value.
+                if (state == FIELD_START || state == QUOTE_IN_QUOTED) {
+                    state = QUOTED;
+                } else if (state == QUOTED) {
+                    state = QUOTE_IN_QUOTED;
+                }
+            } else if (state == QUOTED) {
+                continue;
+            } else if (b == ',' || b == '\n') {
+                delimiters[count++] = i;
+                state = FIELD_START;
+            } else if (b == '\r') {
+                // Only a line end before '\n' (See ByteCsvReader), but the next byte starts a field either way.
+                state = FIELD_START;
+            } else {
+                state = UNQUOTED;
+            }
+        }
+        this.state = state;
+        return count;
+    }
+}
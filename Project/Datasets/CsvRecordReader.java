@@ -0,0 +1,170 @@
+/*
+File: CsvRecordReader.java
+Description: Single pass CSV reader used by ReadData to read Data.csv one complete record at a time.
+Handles quoted commas, "" (escaped quotes) and newlines inside quoted values (RFC-4180).
+
+Collaborators: Jaylin Jack
+ */
+import java.io.*;
+import java.util.*;
+
+
+/*
+WORK CITED:
+1. https://www.rfc-editor.org/rfc/rfc4180
+*/
+
+public class CsvRecordReader implements CsvRecordSource {
+
+    // The states of the reader while walking over the characters of a record.
+    private static final int FIELD_START = 0;
+    private static final int UNQUOTED = 1;
+    private static final int QUOTED = 2;
+    private static final int QUOTE_IN_QUOTED = 3;
+
+    private final Reader in;
+    private final char[] buffer;
+    private int position = 0;
+    private int limit = 0;
+
+    // Reused for every record so we don't allocate a new builder per field.
+    private final StringBuilder field = new StringBuilder(256);
+    private final List<String> fields = new ArrayList<>(16);
+
+    private long recordNumber = 0;
+
+    // UTF-8 bytes of the file consumed so far, counted from the offset the reader was opened at.
+    private long byteOffset;
+
+    public CsvRecordReader(Reader in) {
+        this(in, 64 * 1024);
+    }
+
+    public CsvRecordReader(Reader in, int bufferSize) {
+        this(in, bufferSize, 0);
+    }
+
+    // A reader whose Reader was opened at startOffset bytes into the file (I.E. resuming from a checkpoint).
+    public CsvRecordReader(Reader in, int bufferSize, long startOffset) {
+        this.in = in;
+        this.buffer = new char[bufferSize];
+        this.byteOffset = startOffset;
+    }
+
+    // Number of records returned by next() so far (the header counts as a record).
+    public long getRecordNumber() {
+        return recordNumber;
+    }
+
+    /*
+        Byte offset in the file right after the last record returned by next().
+        The file can be reopened at this offset to continue with the following record.
+     */
+    public long getByteOffset() {
+        return byteOffset;
+    }
+
+    /*
+        Returns every value of the next record with the quotes already removed.
+        Blank lines are skipped, and null is returned once the end of the file is reached.
+     */
+    @Override
+    public String[] next() throws IOException {
+        fields.clear();
+        field.setLength(0);
+
+        int state = FIELD_START;
+        boolean sawAnything = false;
+
+        while (true) {
+            if (position == limit && !fill()) {
+                // End of file, finish whatever record we were in the middle of.
+                if (!sawAnything) {
+                    return null;
+                }
+                fields.add(field.toString());
+                break;
+            }
+
+            char c = buffer[position++];
+            byteOffset += utf8Length(c);
+
+            if (state == QUOTED) {
+                if (c == '"') {
+                    state = QUOTE_IN_QUOTED;
+                } else {
+                    field.append(c);
+                }
+                continue;
+            }
+
+            if (state == QUOTE_IN_QUOTED) {
+                if (c == '"') {
+                    // "" inside a quoted value is a single quote.
+                    field.append('"');
+                    state = QUOTED;
+                    continue;
+                }
+                // The quoted value is closed, whatever follows is handled like an unquoted character.
+                state = UNQUOTED;
+            }
+
+            if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+                state = FIELD_START;
+                sawAnything = true;
+            } else if (c == '\n' || c == '\r') {
+                if (c == '\r' && (position < limit || fill()) && buffer[position] == '\n') {
+                    position++;
+                    byteOffset++;
+                }
+                if (!sawAnything && field.length() == 0) {
+                    // Blank line, nothing to return.
+                    continue;
+                }
+                fields.add(field.toString());
+                break;
+            } else if (c == '"' && state == FIELD_START) {
+                state = QUOTED;
+                sawAnything = true;
+            } else {
+                field.append(c);
+                state = UNQUOTED;
+                sawAnything = true;
+            }
+        }
+
+        recordNumber++;
+        return fields.toArray(new String[0]);
+    }
+
+    // Bytes c takes in UTF-8. Each half of a surrogate pair counts 2, so the pair adds up to its 4 bytes.
+    private static int utf8Length(char c) {
+        if (c < 0x80) {
+            return 1;
+        }
+        if (c < 0x800 || Character.isSurrogate(c)) {
+            return 2;
+        }
+        return 3;
+    }
+
+    // Refill the buffer from the underlying reader. Returns false at the end of the file.
+    private boolean fill() throws IOException {
+        int read = in.read(buffer, 0, buffer.length);
+        if (read <= 0) {
+            position = 0;
+            limit = 0;
+            return false;
+        }
+        position = 0;
+        limit = read;
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
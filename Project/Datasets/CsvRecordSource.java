@@ -0,0 +1,14 @@
+/*
+File: CsvRecordSource.java
+Description: Anything ReadData can pull complete CSV records from, in file order.
+    -> CsvRecordReader (single thread) & ParallelCsvReader (chunks parsed on every core)
+
+Collaborators: Jaylin Jack
+ */
+import java.io.*;
+
+public interface CsvRecordSource extends Closeable {
+
+    // Returns every value of the next record, or null once the end of the file is reached.
+    String[] next() throws IOException;
+}
@@ -0,0 +1,92 @@
+/*
+File: DimensionCaches.java
+Description: The HashMaps ReadData keeps of every (name, ID) it has seen, 1 per table,
+and the DimensionResolver of each table that fills them (safe from any number of threads).
+
+Collaborators: Jaylin Jack
+ */
+import java.sql.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+public class DimensionCaches {
+
+    /*
+    These HashMaps are essential to saving runtime
+        -> Once an element already exists in the table (After we add them)
+        -> It will be accessible along with the ID
+    The HashMaps have their own functions to complete this operation (get*ID_or_INSERT in ReadData)
+    I created this HashMaps because each Map corresponds to a table that only has an ID and description/name
+        -> ONLY 2 VALUES
+    They're ConcurrentHashMaps so the pipeline & the virtual thread loader can read them while another thread adds to them.
+     */
+    public final ConcurrentHashMap<String, Integer> content_format_map = new ConcurrentHashMap<>();
+    public final ConcurrentHashMap<String, Integer> rating_map = new ConcurrentHashMap<>();
+    public final ConcurrentHashMap<String, Integer> director_map = new ConcurrentHashMap<>();
+    public final ConcurrentHashMap<String, Integer> actor_map = new ConcurrentHashMap<>();
+    public final ConcurrentHashMap<String, Integer> tag_map = new ConcurrentHashMap<>();
+    public final ConcurrentHashMap<String, Integer> country_map = new ConcurrentHashMap<>();
+    public final ConcurrentHashMap<String, Integer> date_map = new ConcurrentHashMap<>();
+
+    // Name -> ID of each table, every new name is INSERTED by exactly 1 thread. (See DimensionResolver)
+    public final DimensionResolver formats = new DimensionResolver("Content_Format", content_format_map, ReadData::getContentFormatID_or_INSERT);
+    public final DimensionResolver ratings = new DimensionResolver("Rating", rating_map, ReadData::getRatingID_or_INSERT);
+    public final DimensionResolver directors = new DimensionResolver("Director", director_map, ReadData::getDirectorID_or_INSERT);
+    public final DimensionResolver actors = new DimensionResolver("Actor", actor_map, ReadData::getActorID_or_INSERT);
+    public final DimensionResolver tags = new DimensionResolver("Tag", tag_map, ReadData::getTagID_or_INSERT);
+    public final DimensionResolver countries = new DimensionResolver("Country", country_map, ReadData::getCountryID_or_INSERT);
+    // Every Release we create is version 1.
+    public final DimensionResolver dates = new DimensionResolver("Release", date_map,
+            (map, date, conn) -> ReadData.getRelease_or_INSERT(map, date, "1", conn));
+
+    // Every contentID already in Content, so insertContent knows whether to INSERT or update. (See ContentIdBitmap)
+    public final ContentIdBitmap content_ids = new ContentIdBitmap();
+
+    public DimensionCaches() {
+        // Rating & Director I created for content that don't have a Rating in the CSV File.
+        rating_map.put(ReadData.DEFAULT_RATING, 1);
+        director_map.put(ReadData.MULTIPLE_DIRECTORS, 1);
+    }
+
+    /*
+        Warm up a HashMap with every (name, ID) already in its table using 1 SELECT.
+        The query must return the name/description first and the ID second.
+        The rows are streamed (fetch size Integer.MIN_VALUE for MySQL) so a big table isn't buffered twice.
+        After this, re-runs against a populated DB never need the SELECT in the get*ID_or_INSERT functions.
+        Every name is put through ReadData.DICTIONARY, like the names of the CSV.
+    */
+    public static void preloadMap(Map<String, Integer> map, String query, Connection conn){
+
+        try (PreparedStatement preload = conn.prepareStatement(query, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            preload.setFetchSize(Integer.MIN_VALUE);
+
+            try (ResultSet result = preload.executeQuery()) {
+                while (result.next()) {
+                    // The dictionary's String, so the names read from the CSV find it with an == check.
+                    map.put(ReadData.DICTIONARY.intern(result.getString(1)), result.getInt(2));
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+
+    }
+
+    // Preload all the HashMaps before the CSV is read.
+    public void preload(Connection conn){
+
+        preloadMap(content_format_map, "SELECT description, content_formatID FROM Content_Format", conn);
+        preloadMap(rating_map, "SELECT name, ratingID FROM Rating", conn);
+        preloadMap(director_map, "SELECT name, directorID FROM Director", conn);
+        preloadMap(actor_map, "SELECT name, actorID FROM Actor", conn);
+        preloadMap(tag_map, "SELECT description, tagID FROM Tag", conn);
+        preloadMap(country_map, "SELECT name, countryID FROM Country", conn);
+        // release_date comes back as YYYY-MM-DD, the same format getDateFormatted gives us.
+        preloadMap(date_map, "SELECT release_date, releaseID FROM `Release`", conn);
+        content_ids.preload(conn);
+
+        System.out.println("Preloaded " + content_format_map.size() + " formats, " + rating_map.size() + " ratings, " +
+                director_map.size() + " directors, " + actor_map.size() + " actors, " + tag_map.size() + " tags, " +
+                country_map.size() + " countries, " + date_map.size() + " release dates, " + content_ids.size() + " contents");
+    }
+}
@@ -0,0 +1,168 @@
+/*
+File: DimensionResolver.java
+Description: Name -> ID of 1 dimension table (Actor, Director, Tag, Country, Rating, Content_Format, Release),
+safe to call from any number of threads at once.
+    -> Known names are a ConcurrentHashMap hit, no lock at all.
+    -> The 1st thread to ask for a new name "claims" it by putting a future in the in-flight map,
+       and is the only 1 that runs its get*ID_or_INSERT function (SELECT, then INSERT).
+    -> Any other thread asking for that name meanwhile waits on the future for the ID,
+       threads resolving other names never wait on it.
+So 2 threads that see the same new actor can't INSERT it twice, and no thread holds a global lock.
+
+The records carry the StringDictionary code of each name, resolve(code, ...) finds its ID in an int[] indexed by code:
+    -> No hashing & no String at all for a name that was resolved before.
+    -> A code not in the int[] yet goes through resolve(name, ...) once, then its ID is put in the int[].
+The (name, ID) map stays the one the get*ID_or_INSERT functions, the preload & BulkDimensionResolver fill.
+
+Collaborators: Jaylin Jack
+ */
+import java.sql.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.locks.*;
+
+public class DimensionResolver {
+
+    // The get*ID_or_INSERT function of the table (I.E. ReadData::getActorID_or_INSERT).
+    public interface Lookup {
+        int getID(Map<String, Integer> map, String name, Connection conn);
+    }
+
+    private final String table;
+    private final Map<String, Integer> map;
+    private final Lookup lookup;
+
+    // Names being resolved right now & the future their ID will be given through.
+    //  -> Completed with null when the owner couldn't resolve it, so a waiting thread tries itself.
+    private final ConcurrentHashMap<String, CompletableFuture<Integer>> inFlight = new ConcurrentHashMap<>();
+
+    // The ID of each dictionary code (0 = not known yet, every ID in the DB starts at 1).
+    //  -> Written without a lock: a thread that doesn't see an ID yet just takes the slower way once.
+    private volatile int[] idsByCode = new int[1024];
+    private final ReentrantLock growLock = new ReentrantLock();
+
+    public DimensionResolver(String table, Map<String, Integer> map, Lookup lookup) {
+        this.table = table;
+        this.map = map;
+        this.lookup = lookup;
+    }
+
+    public String getTable() {
+        return table;
+    }
+
+    // The (name, ID) map of the table, filled by preload & every resolve.
+    public Map<String, Integer> getMap() {
+        return map;
+    }
+
+    public boolean isResolved(String name) {
+        return map.containsKey(name);
+    }
+
+    public boolean isResolved(int code) {
+        int[] ids = idsByCode;
+        return code < ids.length && ids[code] != 0;
+    }
+
+    // The ID of the name with this dictionary code. (See ReadData.DICTIONARY)
+    public int resolve(int code, Connection conn) {
+        int[] ids = idsByCode;
+        if (code < ids.length && ids[code] != 0) {
+            LoaderMetrics.GLOBAL.cacheHit(table);
+            return ids[code];
+        }
+
+        int id = resolve(ReadData.DICTIONARY.value(code), conn);
+        if (id != -1) {
+            remember(code, id);
+        }
+        return id;
+    }
+
+    private void remember(int code, int id) {
+        int[] ids = idsByCode;
+        if (code >= ids.length) {
+            growLock.lock();
+            try {
+                ids = idsByCode;
+                if (code >= ids.length) {
+                    ids = Arrays.copyOf(ids, Math.max(ids.length * 2, code + 1));
+                    idsByCode = ids;
+                }
+            } finally {
+                growLock.unlock();
+            }
+        }
+        // Lost if another thread is copying the array right now, then the next resolve of it puts it here again.
+        ids[code] = id;
+    }
+
+    // The ID of a name, INSERTED by whichever thread asked for it first.
+    public int resolve(String name, Connection conn) {
+        // Hit or miss of the HashMap. (See LoaderMetrics)
+        Integer known = map.get(name);
+        if (known != null) {
+            LoaderMetrics.GLOBAL.cacheHit(table);
+            return known;
+        }
+        LoaderMetrics.GLOBAL.cacheMiss(table);
+
+        while (true) {
+            // 1. Already known.
+            Integer id = map.get(name);
+            if (id != null) {
+                return id;
+            }
+
+            // 2. Claim it, or wait for the thread that did.
+            CompletableFuture<Integer> mine = new CompletableFuture<>();
+            CompletableFuture<Integer> owner = inFlight.putIfAbsent(name, mine);
+            if (owner != null) {
+                id = owner.join();
+                if (id != null) {
+                    return id;
+                }
+                // The owner failed, go again (maybe as the owner this time).
+                continue;
+            }
+
+            // 3. Ours. The owner before us may have finished between 1. & 2., so check the map again.
+            int resolved = -1;
+            try {
+                id = map.get(name);
+                resolved = id != null ? id : lookup.getID(map, name, conn);
+            } finally {
+                // The map already has the ID (get*ID_or_INSERT put it there), so nobody can miss it after this.
+                inFlight.remove(name, mine);
+                mine.complete(resolved == -1 ? null : resolved);
+            }
+            return resolved;
+        }
+    }
+
+    /*
+        Claim a new name for a bulk INSERT. (See BulkDimensionResolver)
+        Returns false if it's known already or another thread is resolving it,
+        otherwise the caller MUST hand it back with release() once it's in the map (or failed).
+     */
+    public boolean claim(String name) {
+        if (map.containsKey(name) || inFlight.putIfAbsent(name, new CompletableFuture<>()) != null) {
+            return false;
+        }
+        // Resolved between the check & the claim.
+        if (map.containsKey(name)) {
+            release(name);
+            return false;
+        }
+        return true;
+    }
+
+    // Give back a claimed name, threads waiting on it get whatever ID is in the map now (null = try yourself).
+    public void release(String name) {
+        CompletableFuture<Integer> future = inFlight.remove(name);
+        if (future != null) {
+            future.complete(map.get(name));
+        }
+    }
+}
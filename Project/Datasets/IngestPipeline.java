@@ -0,0 +1,423 @@
+/*
+File: IngestPipeline.java
+Description: Loads the CSV as a staged pipeline so parsing overlaps with DB writes.
+
+    reader/tokenizer -> normalizer -> dimension resolver -> content writer -> associative writers
+
+Every stage runs on its own thread(s) and hands batches of records to the next stage through a
+bounded queue (--queue-size batches). When a later stage (I.E. a slow MySQL) falls behind, the queue
+fills up and the stages before it block, so the heap never grows without bound.
+
+Collaborators: Jaylin Jack
+ */
+import java.io.*;
+import java.sql.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+public class IngestPipeline {
+
+    // Put on a queue when the stage before it is done. Compared by reference.
+    private static final List<Object> END = new ArrayList<>();
+
+    private final LoaderOptions options;
+    private final DimensionCaches caches;
+
+    private final List<Thread> threads = new CopyOnWriteArrayList<>();
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+    // Content rows written so far. (For the Watch_History test rows, same as main)
+    private final AtomicLong contentWritten = new AtomicLong();
+
+    // GenreTags pairs shared by every associative writer, since (genre, tag) isn't tied to 1 content.
+    private final LongHashSet genreTagsWritten = new LongHashSet();
+
+    // --delta: only the reader thread uses it. (See RowFingerprints)
+    private RowFingerprints fingerprints = null;
+
+    public IngestPipeline(LoaderOptions options, DimensionCaches caches) {
+        this.options = options;
+        this.caches = caches;
+    }
+
+    // What 1 thread of a stage does with each batch. Every thread gets its own Worker (I.E. its own Connection).
+    public interface Worker<I, O> {
+        List<O> process(List<I> batch) throws Exception;
+
+        default void close() throws Exception {
+        }
+    }
+
+    public interface WorkerFactory<I, O> {
+        Worker<I, O> create() throws Exception;
+    }
+
+    public void run() {
+        BlockingQueue<List<Object>> tokenized = new ArrayBlockingQueue<>(options.queueSize);
+        BlockingQueue<List<Object>> normalized = new ArrayBlockingQueue<>(options.queueSize);
+        BlockingQueue<List<Object>> resolved = new ArrayBlockingQueue<>(options.queueSize);
+        BlockingQueue<List<Object>> inserted = new ArrayBlockingQueue<>(options.queueSize);
+
+        try (Connection conn = connect()) {
+            System.out.println("Connected");
+            // Fill the HashMaps with what's already in the DB, so known names never cost a SELECT.
+            caches.preload(conn);
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return;
+        }
+
+        if (options.deltaFile != null) {
+            try {
+                fingerprints = RowFingerprints.open(options.deltaFile);
+            } catch (IOException e) {
+                e.printStackTrace();
+                return;
+            }
+        }
+
+        startReader(tokenized);
+        startStage("normalizer", options.normalizerThreads, tokenized, normalized, this::normalizer);
+        startStage("resolver", options.resolverThreads, normalized, resolved, this::resolver);
+        if (options.shards > 1) {
+            // Each shard writes its own contentIDs in its own transactions. (See startShards)
+            startShards(resolved);
+        } else {
+            startStage("content-writer", options.writerThreads, resolved, inserted, this::contentWriter);
+            startStage("associative-writer", options.writerThreads, inserted, null, this::associativeWriter);
+        }
+
+        for (Thread thread : threads) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                abort(e);
+            }
+        }
+
+        if (failure.get() != null) {
+            System.out.println("Pipeline stopped: " + failure.get());
+        } else {
+            System.out.println("Pipeline finished, " + contentWritten.get() + " content rows written");
+
+            // Only remember the fingerprints once everything they stand for is in the DB.
+            if (fingerprints != null) {
+                fingerprints.report();
+                try {
+                    fingerprints.save();
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+    }
+
+    private Connection connect() throws SQLException {
+        return JdbcProfiler.wrap(DriverManager.getConnection(options.dbUrl, options.user, options.password));
+    }
+
+    // Close the statements prepared on the Connection (See StatementRegistry), then the Connection.
+    private static void disconnect(Connection conn) throws SQLException {
+        try {
+            StatementRegistry.release(conn);
+        } finally {
+            conn.close();
+        }
+    }
+
+    // 1 thread reads the CSV (with --parallel the reader itself tokenizes on every core) & batches the records.
+    private void startReader(BlockingQueue<List<Object>> out) {
+        start("reader", () -> {
+            try (CsvRecordSource reader = ReadData.openRecordSource(options)) {
+                // Skip the header (show_id, type, title ...)
+                reader.next();
+
+                List<Object> batch = new ArrayList<>(options.pipelineBatch);
+                String[] values;
+                while ((values = reader.next()) != null) {
+                    // In delta mode a record that is the same as last run never enters the pipeline.
+                    if (fingerprints != null && !fingerprints.isChanged(values)) {
+                        continue;
+                    }
+                    batch.add(values);
+                    if (batch.size() == options.pipelineBatch) {
+                        out.put(batch);
+                        batch = new ArrayList<>(options.pipelineBatch);
+                    }
+                }
+                if (!batch.isEmpty()) {
+                    out.put(batch);
+                }
+            } finally {
+                out.put(END);
+            }
+        });
+    }
+
+    /*
+        Start 'count' threads that take batches from 'in', process them & put the result on 'out'.
+        When a thread sees END it puts it back for the other threads of the stage,
+        and the last thread of the stage to finish puts END on 'out'.
+     */
+    @SuppressWarnings("unchecked")
+    private <I, O> void startStage(String name, int count, BlockingQueue<List<Object>> in,
+                                   BlockingQueue<List<Object>> out, WorkerFactory<I, O> factory) {
+        AtomicInteger running = new AtomicInteger(Math.max(1, count));
+
+        for (int i = 0; i < Math.max(1, count); i++) {
+            start(name + "-" + i, () -> {
+                Worker<I, O> worker = factory.create();
+                try {
+                    while (true) {
+                        List<Object> batch = in.take();
+                        if (batch == END) {
+                            in.put(END);
+                            break;
+                        }
+
+                        List<O> result = worker.process((List<I>) batch);
+                        if (out != null && !result.isEmpty()) {
+                            out.put((List<Object>) result);
+                        }
+                    }
+                } finally {
+                    worker.close();
+                    if (running.decrementAndGet() == 0 && out != null) {
+                        out.put(END);
+                    }
+                }
+            });
+        }
+    }
+
+    /*
+        Sharded writers (--shards=N):
+        A router thread sends every record to shard (contentID % N). Each shard has its own thread,
+        Connection & transaction, and writes the Content row plus all its associations.
+            -> The same contentID always lands on the same shard, so shards never touch each other's rows.
+            -> Names were already resolved once by the resolver stage (shared HashMaps),
+               so 2 shards can never insert the same Actor/Director/... twice.
+     */
+    private void startShards(BlockingQueue<List<Object>> in) {
+        int shards = options.shards;
+        List<BlockingQueue<List<Object>>> shardQueues = new ArrayList<>(shards);
+        for (int i = 0; i < shards; i++) {
+            BlockingQueue<List<Object>> queue = new ArrayBlockingQueue<>(options.queueSize);
+            shardQueues.add(queue);
+            startStage("shard-" + i, 1, queue, null, this::shardWriter);
+        }
+
+        start("router", () -> {
+            try {
+                while (true) {
+                    List<Object> batch = in.take();
+                    if (batch == END) {
+                        break;
+                    }
+
+                    List<List<Object>> routed = new ArrayList<>(shards);
+                    for (int i = 0; i < shards; i++) {
+                        routed.add(new ArrayList<>());
+                    }
+                    for (Object record : batch) {
+                        int contentID = ((CatalogRecord) record).getContentID();
+                        routed.get(Math.floorMod(contentID, shards)).add(record);
+                    }
+
+                    for (int i = 0; i < shards; i++) {
+                        if (!routed.get(i).isEmpty()) {
+                            shardQueues.get(i).put(routed.get(i));
+                        }
+                    }
+                }
+            } finally {
+                for (BlockingQueue<List<Object>> queue : shardQueues) {
+                    queue.put(END);
+                }
+            }
+        });
+    }
+
+    private interface StageBody {
+        void run() throws Exception;
+    }
+
+    private void start(String name, StageBody body) {
+        Thread thread = new Thread(() -> {
+            try {
+                body.run();
+            } catch (InterruptedException e) {
+                // Another stage failed & stopped the pipeline.
+            } catch (Throwable e) {
+                e.printStackTrace();
+                abort(e);
+            }
+        }, "pipeline-" + name);
+
+        threads.add(thread);
+        thread.start();
+    }
+
+    // Stop every stage after the first failure.
+    private void abort(Throwable cause) {
+        if (failure.compareAndSet(null, cause)) {
+            for (Thread thread : threads) {
+                thread.interrupt();
+            }
+        }
+    }
+
+    /*
+        BELOW are the workers of each stage.
+     */
+
+    // String[] -> CatalogRecord (dates, IDs, genres ...). No DB work, so any number of threads.
+    private Worker<String[], CatalogRecord> normalizer() {
+        return batch -> {
+            List<CatalogRecord> records = new ArrayList<>(batch.size());
+            for (String[] values : batch) {
+                CatalogRecord record = new CatalogRecord();
+                ReadData.normalizeRecord(values, record);
+                // IF Content contains all key 9 attributes then proceed.
+                if (record.isComplete()) {
+                    records.add(record);
+                }
+            }
+            return records;
+        };
+    }
+
+    /*
+        Names -> IDs, with its own Connection.
+        Resolver threads don't take turns, a new name is INSERTED by whichever 1 gets to it first. (See DimensionResolver)
+     */
+    private Worker<CatalogRecord, CatalogRecord> resolver() throws SQLException {
+        Connection conn = connect();
+
+        return new Worker<CatalogRecord, CatalogRecord>() {
+            @Override
+            public List<CatalogRecord> process(List<CatalogRecord> batch) {
+                ReadData.resolveBatch(batch, caches, options.resolveChunk, conn);
+                return batch;
+            }
+
+            @Override
+            public void close() throws SQLException {
+                disconnect(conn);
+            }
+        };
+    }
+
+    // INSERT the Content rows, then pass the batch on so its associations can reference them.
+    private Worker<CatalogRecord, CatalogRecord> contentWriter() throws SQLException {
+        Connection conn = connect();
+
+        return new Worker<CatalogRecord, CatalogRecord>() {
+            @Override
+            public List<CatalogRecord> process(List<CatalogRecord> batch) {
+                for (CatalogRecord record : batch) {
+                    writeContent(record, conn);
+                }
+                return batch;
+            }
+
+            @Override
+            public void close() throws SQLException {
+                disconnect(conn);
+            }
+        };
+    }
+
+    // Queue every associative row in its table's BatchWriter.
+    private Worker<CatalogRecord, Object> associativeWriter() throws SQLException {
+        Connection conn = connect();
+        AssociativeWriters writers = new AssociativeWriters(conn, options.batchSize, genreTagsWritten);
+
+        return new Worker<CatalogRecord, Object>() {
+            @Override
+            public List<Object> process(List<CatalogRecord> batch) {
+                for (CatalogRecord record : batch) {
+                    ReadData.writeAssociations(record, writers);
+                }
+                return Collections.emptyList();
+            }
+
+            @Override
+            public void close() throws SQLException {
+                try {
+                    writers.close();
+                } finally {
+                    disconnect(conn);
+                }
+            }
+        };
+    }
+
+    // INSERT 1 Content row (plus the Watch_History test rows).
+    private void writeContent(CatalogRecord record, Connection conn) {
+        boolean inserted = ReadData.insertContent(record.content, caches.content_ids, conn);
+
+        // I just simply want the tester user to watch half the content twice.
+        // Again this is for 11. testing.
+        //      -> Only for new Content, a re-run doesn't watch everything again.
+        if (contentWritten.incrementAndGet() > 4001 && inserted) {
+            ReadData.insertWatch_History(record.getContentID(), 5, conn);
+            ReadData.insertWatch_History(record.getContentID(), 5, conn);
+        }
+    }
+
+    /*
+        1 shard: Content & associations of its contentIDs, committed once per batch.
+        Same rule as ReadData.commitWindow: the insert* functions print a failed row & go on,
+        so the batch only commits when no write failed while it was written.
+            -> Any failure (or an SQLException) rolls the batch back & stops the pipeline.
+            -> The failure count is global, so a failure in another shard rolls this batch back too.
+               The load stops either way, this way no batch commits next to a failed write.
+            -> The rolled back pairs are forgotten by the writers (also in the shared GenreTags set),
+               so no set claims a pair the DB doesn't have.
+     */
+    private Worker<CatalogRecord, Object> shardWriter() throws SQLException {
+        Connection conn = connect();
+        conn.setAutoCommit(false);
+        AssociativeWriters writers = new AssociativeWriters(conn, options.batchSize, genreTagsWritten);
+
+        return new Worker<CatalogRecord, Object>() {
+            @Override
+            public List<Object> process(List<CatalogRecord> batch) throws SQLException {
+                long failuresBefore = LoaderMetrics.GLOBAL.getWriteFailures();
+                try {
+                    for (CatalogRecord record : batch) {
+                        writeContent(record, conn);
+                        ReadData.writeAssociations(record, writers);
+                    }
+                    writers.flush();
+
+                    long failed = LoaderMetrics.GLOBAL.getWriteFailures() - failuresBefore;
+                    if (failed > 0) {
+                        throw new SQLException(failed + " writes failed while this shard wrote its batch");
+                    }
+                } catch (SQLException e) {
+                    conn.rollback();
+                    writers.rolledBack();
+                    throw new SQLException("Shard batch rolled back", e);
+                }
+
+                conn.commit();
+                writers.committed();
+                return Collections.emptyList();
+            }
+
+            @Override
+            public void close() throws SQLException {
+                try {
+                    writers.close();
+                    conn.commit();
+                } finally {
+                    disconnect(conn);
+                }
+            }
+        };
+    }
+}
@@ -0,0 +1,319 @@
+/*
+File: JdbcProfiler.java
+Description: --profile-jdbc wraps every Connection of the loader so each statement it runs is timed & blamed on
+the loader function that ran it (I.E. ReadData.getActorID_or_INSERT, BatchWriter.flush <- ReadData.insertContentTags).
+
+Per (SQL, call site) it keeps:
+    -> how many times it ran & the total time.
+    -> rows affected (INSERT / UPDATE / batches) or rows read (SELECT).
+    -> time to the 1st row of a SELECT, I.E. how long MySQL took before anything came back.
+At exit the sites are printed ranked by total time, so the loops costing the most round trips (N+1) are at the top.
+
+The wrapping is a java.lang.reflect.Proxy of Connection -> Statement -> ResultSet, so it works with any driver.
+Off by default, wrap() hands back the Connection untouched then.
+
+Collaborators: Jaylin Jack
+ */
+import java.lang.reflect.*;
+import java.sql.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+public class JdbcProfiler {
+
+    // Sites printed at exit.
+    private static final int REPORT_SIZE = 40;
+    // Loader frames that make up a call site (the function that ran the statement & its caller).
+    private static final int SITE_DEPTH = 2;
+
+    private static volatile boolean enabled = false;
+
+    // Keyed by call site + SQL.
+    private static final ConcurrentHashMap<String, Site> SITES = new ConcurrentHashMap<>();
+
+    private static final StackWalker WALKER = StackWalker.getInstance();
+
+    private static class Site {
+        final String callSite;
+        final String sql;
+        final LongAdder executions = new LongAdder();
+        final LongAdder nanos = new LongAdder();
+        final LongAdder rows = new LongAdder();
+        final LongAdder firstRowNanos = new LongAdder();
+        final LongAdder firstRows = new LongAdder();
+
+        Site(String callSite, String sql) {
+            this.callSite = callSite;
+            this.sql = sql;
+        }
+    }
+
+    // Turn profiling on for every Connection wrapped from now on & print the report when the JVM exits.
+    public static synchronized void enable() {
+        if (!enabled) {
+            enabled = true;
+            Runtime.getRuntime().addShutdownHook(new Thread(JdbcProfiler::printReport, "jdbc-profiler-report"));
+        }
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    // The Connection to use: a profiled one when --profile-jdbc is on, otherwise conn itself.
+    public static Connection wrap(Connection conn) {
+        if (!enabled || conn == null || isProfiled(conn)) {
+            return conn;
+        }
+        return proxy(Connection.class, new ConnectionHandler(conn));
+    }
+
+    // Already wrapped by us. (A driver or a pool may hand out Proxy Connections of its own, those still get wrapped)
+    private static boolean isProfiled(Connection conn) {
+        return Proxy.isProxyClass(conn.getClass()) && Proxy.getInvocationHandler(conn) instanceof ConnectionHandler;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(JdbcProfiler.class.getClassLoader(), new Class<?>[] {type}, handler);
+    }
+
+    /*
+        BELOW are the 3 wrappers.
+            -> equals & hashCode are the proxy's own, so StatementRegistry can key its map by the wrapped Connection.
+     */
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static Object objectMethod(Object proxy, Method method, Object[] args) {
+        switch (method.getName()) {
+            case "equals":
+                return proxy == args[0];
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            default:
+                return null;
+        }
+    }
+
+    private static class ConnectionHandler implements InvocationHandler {
+        private final Connection conn;
+
+        ConnectionHandler(Connection conn) {
+            this.conn = conn;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object own = objectMethod(proxy, method, args);
+            if (own != null) {
+                return own;
+            }
+
+            Object result = JdbcProfiler.invoke(conn, method, args);
+            switch (method.getName()) {
+                case "prepareStatement":
+                    return proxy(PreparedStatement.class, new StatementHandler((Statement) result, (Connection) proxy, (String) args[0]));
+                case "prepareCall":
+                    return proxy(CallableStatement.class, new StatementHandler((Statement) result, (Connection) proxy, (String) args[0]));
+                case "createStatement":
+                    return proxy(Statement.class, new StatementHandler((Statement) result, (Connection) proxy, null));
+                default:
+                    return result;
+            }
+        }
+    }
+
+    private static class StatementHandler implements InvocationHandler {
+        private final Statement statement;
+        private final Connection conn;
+        // The SQL of a PreparedStatement, null for a plain Statement (its SQL comes with each execute).
+        private final String preparedSql;
+
+        StatementHandler(Statement statement, Connection conn, String preparedSql) {
+            this.statement = statement;
+            this.conn = conn;
+            this.preparedSql = preparedSql;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object own = objectMethod(proxy, method, args);
+            if (own != null) {
+                return own;
+            }
+
+            String name = method.getName();
+            if (name.equals("getConnection")) {
+                return conn;
+            }
+            if (!name.startsWith("execute")) {
+                return JdbcProfiler.invoke(statement, method, args);
+            }
+
+            String sql = preparedSql != null ? preparedSql : (args != null && args.length > 0 ? (String) args[0] : "?");
+            Site site = site(sql);
+
+            long start = System.nanoTime();
+            Object result = JdbcProfiler.invoke(statement, method, args);
+            site.nanos.add(System.nanoTime() - start);
+            site.executions.increment();
+
+            if (result instanceof ResultSet) {
+                // Rows & the 1st row are counted while the caller reads it.
+                return proxy(ResultSet.class, new ResultSetHandler((ResultSet) result, site, start));
+            }
+            site.rows.add(affected(result));
+            return result;
+        }
+    }
+
+    private static class ResultSetHandler implements InvocationHandler {
+        private final ResultSet result;
+        private final Site site;
+        private final long executeStart;
+        private boolean firstRowSeen = false;
+
+        ResultSetHandler(ResultSet result, Site site, long executeStart) {
+            this.result = result;
+            this.site = site;
+            this.executeStart = executeStart;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object own = objectMethod(proxy, method, args);
+            if (own != null) {
+                return own;
+            }
+
+            Object value = JdbcProfiler.invoke(result, method, args);
+            if (method.getName().equals("next")) {
+                if (!firstRowSeen) {
+                    // Also counted when there's no row, it's when the answer came back.
+                    firstRowSeen = true;
+                    site.firstRowNanos.add(System.nanoTime() - executeStart);
+                    site.firstRows.increment();
+                }
+                if ((Boolean) value) {
+                    site.rows.increment();
+                }
+            }
+            return value;
+        }
+    }
+
+    // Rows of executeUpdate / executeBatch (batches rewritten by the driver may report SUCCESS_NO_INFO, not counted).
+    private static long affected(Object result) {
+        if (result instanceof Integer) {
+            return Math.max(0, (Integer) result);
+        }
+        if (result instanceof Long) {
+            return Math.max(0, (Long) result);
+        }
+        long rows = 0;
+        if (result instanceof int[]) {
+            for (int count : (int[]) result) {
+                rows += Math.max(0, count);
+            }
+        } else if (result instanceof long[]) {
+            for (long count : (long[]) result) {
+                rows += Math.max(0, count);
+            }
+        }
+        return rows;
+    }
+
+    /*
+        BELOW is how a statement is blamed on the loader.
+     */
+
+    private static Site site(String sql) {
+        String normalized = normalize(sql);
+        String callSite = callSite();
+        String key = callSite + '\n' + normalized;
+
+        Site site = SITES.get(key);
+        return site != null ? site : SITES.computeIfAbsent(key, k -> new Site(callSite, normalized));
+    }
+
+    /*
+        The loader function that ran the statement & the 1st caller outside its class,
+        I.E. "BatchWriter.flush <- ReadData.insertContentTags", not "BatchWriter.flush <- BatchWriter.add".
+     */
+    private static String callSite() {
+        return WALKER.walk(frames -> {
+            List<String> site = new ArrayList<>(SITE_DEPTH);
+            String lastClass = null;
+            Iterator<StackWalker.StackFrame> it = frames.iterator();
+            while (it.hasNext() && site.size() < SITE_DEPTH) {
+                StackWalker.StackFrame frame = it.next();
+                String className = frame.getClassName();
+                if (isLoaderClass(className) && !className.equals(lastClass)) {
+                    site.add(className + "." + frame.getMethodName());
+                    lastClass = className;
+                }
+            }
+            return String.join(" <- ", site);
+        });
+    }
+
+    // The loader's classes are in the default package, anything with a '.' is the JDK, the driver or a proxy.
+    private static boolean isLoaderClass(String className) {
+        return className.indexOf('.') == -1 && !className.startsWith("JdbcProfiler") && !className.startsWith("$Proxy");
+    }
+
+    // Multi-row INSERTs & IN lists of any length count as 1 statement. (See BulkDimensionResolver)
+    private static String normalize(String sql) {
+        return sql.replaceAll("\\s+", " ")
+                .replaceAll("(\\((?:\\?, )*\\?\\))(?:, \\((?:\\?, )*\\?\\))+", "$1, ...")
+                .replaceAll("IN \\(\\?(?:, \\?)+\\)", "IN (?, ...)")
+                .trim();
+    }
+
+    // The ranked report, most total time first.
+    public static void printReport() {
+        List<Site> sites = new ArrayList<>(SITES.values());
+        if (sites.isEmpty()) {
+            return;
+        }
+        sites.sort(Comparator.comparingLong((Site site) -> site.nanos.sum()).reversed());
+
+        long totalNanos = 0;
+        long totalExecutions = 0;
+        for (Site site : sites) {
+            totalNanos += site.nanos.sum();
+            totalExecutions += site.executions.sum();
+        }
+
+        System.out.println("==== JDBC profile: " + totalExecutions + " statements, " + totalNanos / 1_000_000 +
+                " ms in the DB, " + sites.size() + " call sites ====");
+        System.out.printf("%4s %10s %6s %10s %10s %12s %10s  %s%n",
+                "#", "total ms", "%", "count", "avg us", "rows", "1st row us", "call site / SQL");
+
+        for (int i = 0; i < Math.min(REPORT_SIZE, sites.size()); i++) {
+            Site site = sites.get(i);
+            long nanos = site.nanos.sum();
+            long executions = site.executions.sum();
+            long firstRows = site.firstRows.sum();
+            String sql = site.sql.length() > 100 ? site.sql.substring(0, 100) + "..." : site.sql;
+
+            System.out.printf("%4d %10d %6.1f %10d %10.0f %12d %10s  %s%n", i + 1, nanos / 1_000_000,
+                    totalNanos == 0 ? 0 : nanos * 100.0 / totalNanos, executions,
+                    executions == 0 ? 0 : nanos / 1000.0 / executions, site.rows.sum(),
+                    firstRows == 0 ? "-" : String.format("%.0f", site.firstRowNanos.sum() / 1000.0 / firstRows),
+                    site.callSite);
+            System.out.printf("%4s %10s %6s %10s %10s %12s %10s    %s%n", "", "", "", "", "", "", "", sql);
+        }
+        if (sites.size() > REPORT_SIZE) {
+            System.out.println("    ... " + (sites.size() - REPORT_SIZE) + " more call sites");
+        }
+    }
+}
@@ -0,0 +1,91 @@
+/*
+File: LoadCheckpoint.java
+Description: Where the last committed transaction of ReadData (--commit-every=N) stopped in the CSV file.
+    -> byte offset right after the last committed record
+    -> show_id of that record
+    -> number of Content rows committed so far (the Watch_History test rows depend on it)
+It's saved after every commit, so a restarted ReadData continues right after the last committed record,
+and deleted once the whole file is loaded.
+
+Collaborators: Jaylin Jack
+ */
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+
+public class LoadCheckpoint {
+
+    private final Path file;
+
+    private long byteOffset = 0;
+    private String showID = null;
+    private long contentRows = 0;
+
+    private LoadCheckpoint(Path file) {
+        this.file = file;
+    }
+
+    /*
+        Read the checkpoint file if a previous run left one behind.
+        Without one, the checkpoint starts at the beginning of the file.
+     */
+    public static LoadCheckpoint open(String path) throws IOException {
+        LoadCheckpoint checkpoint = new LoadCheckpoint(Paths.get(path));
+
+        if (Files.exists(checkpoint.file)) {
+            Properties saved = new Properties();
+            try (Reader in = Files.newBufferedReader(checkpoint.file, StandardCharsets.UTF_8)) {
+                saved.load(in);
+            }
+            checkpoint.byteOffset = Long.parseLong(saved.getProperty("offset"));
+            checkpoint.showID = saved.getProperty("show_id");
+            checkpoint.contentRows = Long.parseLong(saved.getProperty("content_rows", "0"));
+        }
+        return checkpoint;
+    }
+
+    // True when a previous run committed part of the file.
+    public boolean isResuming() {
+        return byteOffset > 0;
+    }
+
+    public long getByteOffset() {
+        return byteOffset;
+    }
+
+    public String getShowID() {
+        return showID;
+    }
+
+    public long getContentRows() {
+        return contentRows;
+    }
+
+    /*
+        Called right after a commit.
+        Written to a temporary file that then replaces the old checkpoint,
+        so a crash while saving still leaves the previous checkpoint in one piece.
+     */
+    public void save(long byteOffset, String showID, long contentRows) throws IOException {
+        this.byteOffset = byteOffset;
+        this.showID = showID;
+        this.contentRows = contentRows;
+
+        Properties saved = new Properties();
+        saved.setProperty("offset", String.valueOf(byteOffset));
+        saved.setProperty("show_id", showID == null ? "" : showID);
+        saved.setProperty("content_rows", String.valueOf(contentRows));
+
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try (Writer out = Files.newBufferedWriter(temporary, StandardCharsets.UTF_8)) {
+            saved.store(out, "ReadData checkpoint");
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // The whole file is loaded, the next run starts over.
+    public void delete() throws IOException {
+        Files.deleteIfExists(file);
+    }
+}
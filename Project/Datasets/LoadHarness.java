@@ -0,0 +1,305 @@
+/*
+File: LoadHarness.java
+Description: End to end load benchmark. Loads the same CSV into a local MySQL once per loader mode
+and records, per mode: rows/sec, peak heap (after GC), SQL round trips & the Content rows that made it in.
+
+    java CatalogGenerator --rows=1000000 --out=synthetic.csv
+    java LoadHarness --file=synthetic.csv --modes=sequential,pipeline,virtual-threads,bulk-load
+
+1. Before each mode the DB is rebuilt with the project's scripts (--reset=a.sql,b.sql, "none" to skip),
+   so every mode starts from the same empty tables.
+   The checkpoint (--checkpoint) & fingerprint file (--delta) are deleted too, otherwise a mode would resume
+   or skip records because of what the mode before it left behind.
+2. Each mode runs in its own JVM (--jvm="-Xmx4g ..."), so the caches & the peak heap of 1 mode
+   don't leak into the next. The child prints 1 "HARNESS ..." line the parent reads back.
+3. The results are printed as a table & appended to --report (a CSV, 1 line per mode).
+
+Every other --option is passed to ReadData as is (I.E. --parallel, --db-url, --shards=4).
+
+Collaborators: Jaylin Jack
+ */
+import com.sun.management.GarbageCollectionNotificationInfo;
+
+import java.io.*;
+import java.lang.management.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.sql.*;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.management.*;
+import javax.management.openmbean.CompositeData;
+
+public class LoadHarness {
+
+    private static final String RESULT_PREFIX = "HARNESS ";
+
+    // The options of ReadData for each mode.
+    private static final Map<String, List<String>> MODES = new LinkedHashMap<>();
+
+    static {
+        MODES.put("sequential", Collections.emptyList());
+        MODES.put("pipeline", Collections.singletonList("--pipeline"));
+        MODES.put("virtual-threads", Collections.singletonList("--virtual-threads"));
+        MODES.put("bulk-load", Collections.singletonList("--bulk-load"));
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0 && args[0].equals("--child")) {
+            child(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+
+        List<String> modes = new ArrayList<>(MODES.keySet());
+        List<String> resetScripts = Arrays.asList("../Scripts/Databasemodel.sql", "../Scripts/InsertsBeforeReadData.sql");
+        List<String> jvmOptions = new ArrayList<>();
+        String report = "harness-results.csv";
+        List<String> loaderArgs = new ArrayList<>();
+
+        for (String arg : args) {
+            if (arg.startsWith("--modes=")) {
+                modes = Arrays.asList(arg.substring("--modes=".length()).split(","));
+            } else if (arg.startsWith("--reset=")) {
+                String value = arg.substring("--reset=".length());
+                resetScripts = value.equals("none") ? Collections.emptyList() : Arrays.asList(value.split(","));
+            } else if (arg.startsWith("--jvm=")) {
+                jvmOptions = Arrays.asList(arg.substring("--jvm=".length()).trim().split("\\s+"));
+            } else if (arg.startsWith("--report=")) {
+                report = arg.substring("--report=".length());
+            } else {
+                loaderArgs.add(arg);
+            }
+        }
+
+        // Only to reach the DB for the resets & counts, the options are checked the same way ReadData does.
+        LoaderOptions options = LoaderOptions.parse(loaderArgs.toArray(new String[0]));
+
+        // Every mode's options are checked before the 1st reset, I.E. --commit-every with the pipeline fails here.
+        for (String mode : modes) {
+            if (!MODES.containsKey(mode)) {
+                throw new IllegalArgumentException("Unknown mode: " + mode + " (one of " + MODES.keySet() + ")");
+            }
+            LoaderOptions.parse(childArgs(loaderArgs, mode).toArray(new String[0]));
+        }
+
+        List<Map<String, String>> results = new ArrayList<>();
+        for (String mode : modes) {
+            System.out.println("==== " + mode + " ====");
+            try (Connection conn = DriverManager.getConnection(options.dbUrl, options.user, options.password)) {
+                for (String script : resetScripts) {
+                    runScript(conn, Paths.get(script));
+                }
+            }
+            deleteRunFiles(options);
+
+            Map<String, String> result = runChild(jvmOptions, childArgs(loaderArgs, mode));
+            result.put("mode", mode);
+
+            try (Connection conn = DriverManager.getConnection(options.dbUrl, options.user, options.password);
+                 Statement statement = conn.createStatement();
+                 ResultSet count = statement.executeQuery("SELECT COUNT(*) FROM Content")) {
+                count.next();
+                result.put("content_rows", String.valueOf(count.getLong(1)));
+            }
+            results.add(result);
+        }
+
+        print(results);
+        appendReport(Paths.get(report), options.file, results);
+    }
+
+    private static List<String> childArgs(List<String> loaderArgs, String mode) {
+        List<String> childArgs = new ArrayList<>(loaderArgs);
+        childArgs.addAll(MODES.get(mode));
+        return childArgs;
+    }
+
+    // The files 1 run leaves for the next (See LoadCheckpoint & RowFingerprints), with their .tmp while being written.
+    private static void deleteRunFiles(LoaderOptions options) throws IOException {
+        for (String file : Arrays.asList(options.checkpointFile, options.deltaFile)) {
+            if (file != null) {
+                Files.deleteIfExists(Paths.get(file));
+                Files.deleteIfExists(Paths.get(file + ".tmp"));
+            }
+        }
+    }
+
+    /*
+        BELOW is the child JVM: 1 load & 1 result line.
+     */
+
+    private static void child(String[] args) {
+        LoaderOptions options = LoaderOptions.parse(args);
+        LoaderMetrics metrics = LoaderMetrics.GLOBAL;
+        AtomicLong peakHeap = watchHeapAfterGc();
+
+        metrics.register();
+        metrics.start();
+        long start = System.nanoTime();
+        try {
+            ReadData.load(options);
+        } finally {
+            metrics.printSummary();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        // No GC during the whole load (a small file), then what's used now is as close as it gets.
+        long peak = peakHeap.get() > 0 ? peakHeap.get() : ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+
+        System.out.println(RESULT_PREFIX + "records=" + metrics.getRecordsParsed() +
+                " seconds=" + String.format(Locale.ROOT, "%.2f", seconds) +
+                " rows_per_sec=" + String.format(Locale.ROOT, "%.0f", metrics.getRecordsParsed() / seconds) +
+                " peak_heap_mb=" + peak / (1024 * 1024) +
+                " round_trips=" + metrics.getTotalRoundTrips() +
+                " p99_us=" + String.format(Locale.ROOT, "%.0f", metrics.getLatencyP99Micros()));
+    }
+
+    /*
+        The most heap that was still used right after a GC, I.E. what the loader really kept alive.
+            -> The peak of each pool (eden, survivor, old ...) is reached at a different moment,
+               adding them up counts garbage that was never there all at once.
+            -> Every collector sends a notification with the usage of each pool after it ran,
+               the heap pools of 1 notification are the same moment so those do add up.
+     */
+    private static AtomicLong watchHeapAfterGc() {
+        Set<String> heapPools = new HashSet<>();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                heapPools.add(pool.getName());
+            }
+        }
+
+        AtomicLong peak = new AtomicLong();
+        NotificationListener listener = (notification, handback) -> {
+            if (!notification.getType().equals(GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION)) {
+                return;
+            }
+            GarbageCollectionNotificationInfo info =
+                    GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData());
+            long used = 0;
+            for (Map.Entry<String, MemoryUsage> pool : info.getGcInfo().getMemoryUsageAfterGc().entrySet()) {
+                if (heapPools.contains(pool.getKey())) {
+                    used += pool.getValue().getUsed();
+                }
+            }
+            peak.accumulateAndGet(used, Math::max);
+        };
+
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            if (collector instanceof NotificationEmitter) {
+                ((NotificationEmitter) collector).addNotificationListener(listener, null, null);
+            }
+        }
+        return peak;
+    }
+
+    // Start the child JVM on the same classpath, echo its output & read its result line.
+    private static Map<String, String> runChild(List<String> jvmOptions, List<String> loaderArgs)
+            throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(jvmOptions);
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add("LoadHarness");
+        command.add("--child");
+        command.addAll(loaderArgs);
+
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+
+        Map<String, String> result = new LinkedHashMap<>();
+        try (BufferedReader output = new BufferedReader(
+                new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = output.readLine()) != null) {
+                System.out.println("    " + line);
+                if (line.startsWith(RESULT_PREFIX)) {
+                    for (String pair : line.substring(RESULT_PREFIX.length()).split(" ")) {
+                        int equals = pair.indexOf('=');
+                        result.put(pair.substring(0, equals), pair.substring(equals + 1));
+                    }
+                }
+            }
+        }
+
+        int exit = process.waitFor();
+        if (exit != 0 || result.isEmpty()) {
+            throw new IllegalStateException("Load failed (exit code " + exit + "), see the output above");
+        }
+        return result;
+    }
+
+    /*
+        Run a .sql file statement by statement (the same files DataGrip runs).
+            -> Statements end with ';', or with what a DELIMITER line sets (for the triggers & procedures).
+            -> '--' comment lines are skipped, block comments go to MySQL with the statement.
+     */
+    public static void runScript(Connection conn, Path script) throws IOException, SQLException {
+        String delimiter = ";";
+        StringBuilder statement = new StringBuilder();
+
+        try (Statement executor = conn.createStatement()) {
+            for (String line : Files.readAllLines(script, StandardCharsets.UTF_8)) {
+                String trimmed = line.trim();
+                if (trimmed.toUpperCase(Locale.ROOT).startsWith("DELIMITER ")) {
+                    delimiter = trimmed.substring("DELIMITER ".length()).trim();
+                    continue;
+                }
+                if (trimmed.startsWith("--") || (trimmed.isEmpty() && statement.length() == 0)) {
+                    continue;
+                }
+
+                statement.append(line).append('\n');
+                if (trimmed.endsWith(delimiter)) {
+                    String sql = statement.toString().trim();
+                    sql = sql.substring(0, sql.length() - delimiter.length()).trim();
+                    if (!sql.isEmpty()) {
+                        executor.execute(sql);
+                    }
+                    statement.setLength(0);
+                }
+            }
+        }
+    }
+
+    private static final String[] COLUMNS = {"mode", "records", "seconds", "rows_per_sec", "peak_heap_mb",
+            "round_trips", "p99_us", "content_rows"};
+
+    private static void print(List<Map<String, String>> results) {
+        System.out.println();
+        StringBuilder header = new StringBuilder();
+        for (String column : COLUMNS) {
+            header.append(String.format("%-16s", column));
+        }
+        System.out.println(header);
+        for (Map<String, String> result : results) {
+            StringBuilder row = new StringBuilder();
+            for (String column : COLUMNS) {
+                row.append(String.format("%-16s", result.getOrDefault(column, "-")));
+            }
+            System.out.println(row);
+        }
+    }
+
+    // 1 CSV line per mode, with the time & the file so runs at different sizes can be compared later.
+    private static void appendReport(Path report, String file, List<Map<String, String>> results) throws IOException {
+        boolean exists = Files.exists(report);
+        try (BufferedWriter writer = Files.newBufferedWriter(report, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            if (!exists) {
+                writer.write("timestamp,file," + String.join(",", COLUMNS));
+                writer.newLine();
+            }
+            String timestamp = java.time.LocalDateTime.now().withNano(0).toString();
+            for (Map<String, String> result : results) {
+                StringBuilder line = new StringBuilder(timestamp).append(',').append(file);
+                for (String column : COLUMNS) {
+                    line.append(',').append(result.getOrDefault(column, ""));
+                }
+                writer.write(line.toString());
+                writer.newLine();
+            }
+        }
+        System.out.println("Results appended to " + report);
+    }
+}
@@ -0,0 +1,106 @@
+/*
+File: LoadWindow.java
+Description: The helper List<List> main fills while reading records (contentHelper, actorHelper ...).
+Without --commit-every or --memory-mb the window holds the whole file like it always did.
+    -> --commit-every=N: the window is written & committed every N records and then emptied.
+    -> --memory-mb=M: the window is written as soon as its rows take about M MB of heap,
+       so the rows don't pile up however big the CSV is.
+       (The caches of distinct names & contentIDs still grow with them, See LoaderOptions.memoryBudget)
+
+Collaborators: Jaylin Jack
+ */
+import java.util.*;
+
+public class LoadWindow {
+
+    public final List<ContentRecord> contentHelper = new ArrayList<>();
+    public final List<List<String>> actorHelper = new ArrayList<>();
+    public final List<List<String>> contentDirectorsHelper = new ArrayList<>();
+    public final List<List<String>> contentTagsHelper = new ArrayList<>();
+    public final List<List<String>> genreTagsHelper = new ArrayList<>();
+    public final List<List<String>> countryHelper = new ArrayList<>();
+    public final List<List<String>> dateHelper = new ArrayList<>();
+
+    // CSV records read into this window (complete or not).
+    private int records = 0;
+
+    // Rough heap taken by the rows in the window.
+    private long estimatedBytes = 0;
+
+    // Add all of the cleaned values of a complete record to the List<List>.
+    //  -> Each row is the ID (the genre for genreTagsHelper) & then the names of the record's codes.
+    public void add(CatalogRecord record) {
+
+        // ADD the content (id, title, director etc.)
+        //  -> ~100 bytes for the ContentRecord, the title & description are its only Strings that aren't shared.
+        contentHelper.add(record.content.copy());
+        estimatedBytes += 100 + 48 + record.content.title.length() + 48 + record.content.description.length();
+
+        String id = String.valueOf(record.getContentID());
+
+        if (record.hasActors()) {
+            addRow(actorHelper, id, record.actorCodes);
+        }
+
+        if (record.hasTags()){
+            addRow(contentTagsHelper, id, record.tagCodes);
+        }
+
+        if (record.hasGenreTags()){
+            addRow(genreTagsHelper, ReadData.genreName(record.content.genreID), record.tagCodes);
+        }
+
+        if (record.hasCountries()){
+            addRow(countryHelper, id, record.countryCodes);
+        }
+
+        if (record.hasDate()){
+            addRow(dateHelper, id, record.dateCodes);
+        }
+
+        if (record.hasDirectors()){
+            addRow(contentDirectorsHelper, id, record.directorCodes);
+        }
+    }
+
+    /*
+        Build the row & count what it costs.
+            -> ~56 bytes for the ArrayList & its array, 8 per element.
+            -> The names are the dictionary's Strings (shared with every other row), only the ID is new.
+     */
+    private void addRow(List<List<String>> helper, String id, CatalogRecord.IntList codes) {
+        List<String> row = new ArrayList<>(codes.size() + 1);
+        row.add(id);
+        for (int j = 0; j < codes.size(); j++) {
+            row.add(ReadData.DICTIONARY.value(codes.get(j)));
+        }
+        helper.add(row);
+
+        estimatedBytes += 56 + 8L * row.size() + 48 + id.length();
+    }
+
+    // Count every record read, so the window can be closed after N of them.
+    public void countRecord() {
+        records++;
+    }
+
+    public int getRecords() {
+        return records;
+    }
+
+    public long getEstimatedBytes() {
+        return estimatedBytes;
+    }
+
+    public void clear() {
+        contentHelper.clear();
+        actorHelper.clear();
+        contentDirectorsHelper.clear();
+        contentTagsHelper.clear();
+        genreTagsHelper.clear();
+        countryHelper.clear();
+        dateHelper.clear();
+        records = 0;
+        estimatedBytes = 0;
+    }
+}
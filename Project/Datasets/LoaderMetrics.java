@@ -0,0 +1,242 @@
+/*
+File: LoaderMetrics.java
+Description: Counters of 1 run of the loader, shared by every mode (sequential, pipeline, virtual threads, bulk load).
+    -> Records parsed & records per second.
+    -> SQL round trips per table & how long each took (p50 / p99, See LatencyHistogram).
+    -> Rows per batch of each table.
+    -> HashMap hits & misses of each dimension table.
+    -> Writes that failed (the SQLException is printed & the load goes on), so a run can tell its data is incomplete.
+Everything is a LongAdder / atomic, so any thread can record without a lock & without printing on the hot path.
+
+LoaderMetrics.GLOBAL is registered as an MXBean by main & printed as a summary when the run ends.
+
+Collaborators: Jaylin Jack
+ */
+import java.lang.management.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import javax.management.*;
+
+public class LoaderMetrics implements LoaderMetricsMXBean {
+
+    public static final LoaderMetrics GLOBAL = new LoaderMetrics();
+
+    public static final String OBJECT_NAME = "MultimediaContentDB:type=LoaderMetrics";
+
+    private volatile long startNanos = System.nanoTime();
+
+    private final LongAdder recordsParsed = new LongAdder();
+    private final LongAdder writeFailures = new LongAdder();
+    private final LatencyHistogram latency = new LatencyHistogram();
+
+    // Per table, sorted so the summary & JMX list them the same way every time.
+    private final ConcurrentSkipListMap<String, TableStats> tables = new ConcurrentSkipListMap<>();
+    private final ConcurrentSkipListMap<String, LongAdder> cacheHits = new ConcurrentSkipListMap<>();
+    private final ConcurrentSkipListMap<String, LongAdder> cacheMisses = new ConcurrentSkipListMap<>();
+    private final ConcurrentSkipListMap<String, LongAdder> counters = new ConcurrentSkipListMap<>();
+
+    private static class TableStats {
+        final LatencyHistogram latency = new LatencyHistogram();
+        final LongAdder batches = new LongAdder();
+        final LongAdder batchRows = new LongAdder();
+        final AtomicInteger largestBatch = new AtomicInteger();
+    }
+
+    // Start counting the records per second from now.
+    public void start() {
+        startNanos = System.nanoTime();
+    }
+
+    // Make the counters readable over JMX.
+    public void register() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (!server.isRegistered(name)) {
+                server.registerMBean(this, name);
+            }
+        } catch (JMException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /*
+        BELOW is what the loader records.
+     */
+
+    public void recordParsed() {
+        recordsParsed.increment();
+    }
+
+    // 1 round trip to 'table' that started at 'startNanos' (System.nanoTime) & just ended.
+    public void roundTrip(String table, long startNanos) {
+        long nanos = System.nanoTime() - startNanos;
+        latency.record(nanos);
+        table(table).latency.record(nanos);
+    }
+
+    // A round trip that sent 'rows' rows at once (executeBatch, multi-row INSERT, LOAD DATA).
+    public void batch(String table, int rows, long startNanos) {
+        roundTrip(table, startNanos);
+        TableStats stats = table(table);
+        stats.batches.increment();
+        stats.batchRows.add(rows);
+        stats.largestBatch.accumulateAndGet(rows, Math::max);
+    }
+
+    // An INSERT / lookup of 'table' that threw, its row never made it in.
+    public void writeFailed(String table) {
+        writeFailures.increment();
+        count(table + " write failed");
+    }
+
+    public void cacheHit(String table) {
+        adder(cacheHits, table).increment();
+    }
+
+    public void cacheMiss(String table) {
+        adder(cacheMisses, table).increment();
+    }
+
+    public void count(String name) {
+        adder(counters, name).increment();
+    }
+
+    private TableStats table(String table) {
+        TableStats stats = tables.get(table);
+        return stats != null ? stats : tables.computeIfAbsent(table, t -> new TableStats());
+    }
+
+    private static LongAdder adder(ConcurrentMap<String, LongAdder> map, String name) {
+        LongAdder adder = map.get(name);
+        return adder != null ? adder : map.computeIfAbsent(name, n -> new LongAdder());
+    }
+
+    /*
+        BELOW are the MXBean getters.
+     */
+
+    @Override
+    public long getRecordsParsed() {
+        return recordsParsed.sum();
+    }
+
+    @Override
+    public long getWriteFailures() {
+        return writeFailures.sum();
+    }
+
+    @Override
+    public double getRecordsPerSecond() {
+        long elapsed = System.nanoTime() - startNanos;
+        return elapsed <= 0 ? 0 : recordsParsed.sum() * 1e9 / elapsed;
+    }
+
+    @Override
+    public long getElapsedMillis() {
+        return (System.nanoTime() - startNanos) / 1_000_000;
+    }
+
+    @Override
+    public Map<String, Long> getRoundTrips() {
+        Map<String, Long> roundTrips = new LinkedHashMap<>();
+        tables.forEach((table, stats) -> roundTrips.put(table, stats.latency.getCount()));
+        return roundTrips;
+    }
+
+    @Override
+    public long getTotalRoundTrips() {
+        return latency.getCount();
+    }
+
+    @Override
+    public Map<String, Double> getAverageBatchSizes() {
+        Map<String, Double> sizes = new LinkedHashMap<>();
+        tables.forEach((table, stats) -> {
+            long batches = stats.batches.sum();
+            if (batches > 0) {
+                sizes.put(table, (double) stats.batchRows.sum() / batches);
+            }
+        });
+        return sizes;
+    }
+
+    @Override
+    public Map<String, Long> getCacheHits() {
+        return sums(cacheHits);
+    }
+
+    @Override
+    public Map<String, Long> getCacheMisses() {
+        return sums(cacheMisses);
+    }
+
+    @Override
+    public double getLatencyP50Micros() {
+        return latency.percentile(50) / 1000.0;
+    }
+
+    @Override
+    public double getLatencyP99Micros() {
+        return latency.percentile(99) / 1000.0;
+    }
+
+    @Override
+    public Map<String, Double> getLatencyP99MicrosByTable() {
+        Map<String, Double> p99 = new LinkedHashMap<>();
+        tables.forEach((table, stats) -> p99.put(table, stats.latency.percentile(99) / 1000.0));
+        return p99;
+    }
+
+    @Override
+    public Map<String, Long> getCounters() {
+        return sums(counters);
+    }
+
+    private static Map<String, Long> sums(Map<String, LongAdder> map) {
+        Map<String, Long> sums = new LinkedHashMap<>();
+        map.forEach((name, adder) -> sums.put(name, adder.sum()));
+        return sums;
+    }
+
+    // The end of run summary.
+    public void printSummary() {
+        System.out.println("==== Load summary ====");
+        System.out.printf("Records: %d parsed in %.1f s (%.0f / s)%n",
+                getRecordsParsed(), getElapsedMillis() / 1000.0, getRecordsPerSecond());
+        if (getWriteFailures() > 0) {
+            System.out.println("Write failures: " + getWriteFailures() + " (See the stack traces above)");
+        }
+        System.out.printf("Round trips: %d, latency p50 %.0f us, p99 %.0f us, max %.0f us, %.1f s spent in the DB%n",
+                getTotalRoundTrips(), getLatencyP50Micros(), getLatencyP99Micros(),
+                latency.getMaxNanos() / 1000.0, latency.getTotalNanos() / 1e9);
+
+        if (!tables.isEmpty()) {
+            System.out.printf("    %-22s %10s %10s %10s %12s %12s %10s%n",
+                    "table", "trips", "p50 us", "p99 us", "total ms", "avg batch", "max batch");
+            tables.forEach((table, stats) -> {
+                long batches = stats.batches.sum();
+                System.out.printf("    %-22s %10d %10.0f %10.0f %12d %12s %10s%n", table,
+                        stats.latency.getCount(), stats.latency.percentile(50) / 1000.0,
+                        stats.latency.percentile(99) / 1000.0, stats.latency.getTotalNanos() / 1_000_000,
+                        batches == 0 ? "-" : String.format("%.1f", (double) stats.batchRows.sum() / batches),
+                        batches == 0 ? "-" : String.valueOf(stats.largestBatch.get()));
+            });
+        }
+
+        if (!cacheHits.isEmpty() || !cacheMisses.isEmpty()) {
+            Set<String> caches = new TreeSet<>(cacheHits.keySet());
+            caches.addAll(cacheMisses.keySet());
+            System.out.printf("    %-22s %10s %10s %10s%n", "cache", "hits", "misses", "hit %");
+            for (String cache : caches) {
+                long hits = cacheHits.containsKey(cache) ? cacheHits.get(cache).sum() : 0;
+                long misses = cacheMisses.containsKey(cache) ? cacheMisses.get(cache).sum() : 0;
+                System.out.printf("    %-22s %10d %10d %10.1f%n", cache, hits, misses,
+                        hits + misses == 0 ? 0 : hits * 100.0 / (hits + misses));
+            }
+        }
+
+        counters.forEach((name, adder) -> System.out.println("    " + name + ": " + adder.sum()));
+    }
+}
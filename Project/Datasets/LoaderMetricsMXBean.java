@@ -0,0 +1,43 @@
+/*
+File: LoaderMetricsMXBean.java
+Description: What LoaderMetrics shows over JMX (jconsole / VisualVM -> MBeans -> MultimediaContentDB -> LoaderMetrics),
+so a running load can be watched without waiting for the summary at the end.
+
+Collaborators: Jaylin Jack
+ */
+import java.util.*;
+
+public interface LoaderMetricsMXBean {
+
+    long getRecordsParsed();
+
+    double getRecordsPerSecond();
+
+    // Writes whose SQLException was printed & skipped. (See LoaderMetrics.writeFailed)
+    long getWriteFailures();
+
+    long getElapsedMillis();
+
+    // SQL round trips (executeQuery / executeUpdate / executeBatch / LOAD DATA) per table & in total.
+    Map<String, Long> getRoundTrips();
+
+    long getTotalRoundTrips();
+
+    // Rows per executeBatch / multi-row INSERT, per table.
+    Map<String, Double> getAverageBatchSizes();
+
+    // Name -> ID lookups answered by the HashMap of the table or not. (See DimensionResolver)
+    Map<String, Long> getCacheHits();
+
+    Map<String, Long> getCacheMisses();
+
+    // Statement latency of every round trip, in microseconds.
+    double getLatencyP50Micros();
+
+    double getLatencyP99Micros();
+
+    Map<String, Double> getLatencyP99MicrosByTable();
+
+    // Anything else worth counting (I.E. "Content inserted", "Content updated").
+    Map<String, Long> getCounters();
+}
@@ -0,0 +1,262 @@
+/*
+File: LoaderOptions.java
+Description: The command line options for ReadData.
+Every option is passed as --name or --name=value, I.E.
+    java ReadData --file=Data.csv --parallel=16
+
+Collaborators: Jaylin Jack
+ */
+import java.util.*;
+
+public class LoaderOptions {
+
+    // CSV file to load.
+    public String file = "Data.csv";
+
+    // DB connection.
+    //  -> rewriteBatchedStatements lets the driver send each batch as 1 multi-row INSERT.
+    //  -> useServerPrepStmts makes MySQL parse each statement of the StatementRegistry once,
+    //     cachePrepStmts keeps the short lived ones (I.E. preload queries) prepared in the driver.
+    public String dbUrl = "jdbc:mysql://localhost:3306/MultimediaContentDB?rewriteBatchedStatements=true" +
+            "&useServerPrepStmts=true&cachePrepStmts=true";
+    public String user = "root";
+    public String password = "Jade";
+
+    // Number of threads parsing the CSV. 1 keeps the single thread reader.
+    public int parserThreads = 1;
+    // Size of each byte range handed to a parser thread.
+    public long chunkBytes = 16L * 1024 * 1024;
+    // --byte-reader[=auto|scalar] parses the raw bytes with ByteCsvReader (SIMD when the Vector API is on),
+    // null keeps CsvRecordReader. Works with --parallel & --commit-every too.
+    public String byteReader = null;
+
+    // Rows queued per associative table before they are sent to the DB.
+    public int batchSize = 1000;
+
+    // New names of 1 table inserted & read back per statement by BulkDimensionResolver.
+    public int resolveChunk = 1000;
+
+    // --pipeline runs the staged loader (IngestPipeline) instead of parsing the whole file first.
+    public boolean pipeline = false;
+    // Threads per stage of the pipeline.
+    public int normalizerThreads = 2;
+    public int resolverThreads = 1;
+    public int writerThreads = 1;
+    // Records per batch handed between stages & batches each queue holds before the stage before it waits.
+    public int pipelineBatch = 500;
+    public int queueSize = 16;
+    // --shards=N splits the pipeline's writes by contentID over N connections (1 = no sharding).
+    public int shards = 1;
+
+    // --virtual-threads loads micro-batches of --task-batch records on virtual threads (See VirtualThreadLoader),
+    // sharing --pool-size Connections.
+    public boolean virtualThreads = false;
+    public int poolSize = 8;
+    public int taskBatch = 100;
+
+    // --commit-every=N commits every N records & keeps a checkpoint so a restart resumes (0 = autocommit).
+    //  -> Sequential loader only, parse() rejects it next to --bulk-load, --pipeline/--shards or --virtual-threads.
+    public int commitEvery = 0;
+    public String checkpointFile = "ReadData.checkpoint";
+
+    // --memory-mb=M writes the records read so far whenever they take about M MB (0 = read the whole file first).
+    //  -> Sequential loader only, parse() rejects it next to the other loaders like --commit-every.
+    //  -> The associative writers then keep no pairs in memory, the DB skips the ones it has. (See BatchWriter)
+    //  -> What still grows: the name -> ID HashMaps (DimensionCaches) & the interned names (StringDictionary)
+    //     with the number of distinct names, & the contentID bitmap (ContentIdBitmap) with the contentIDs.
+    public long memoryBudget = 0;
+
+    // --delta[=file] only loads records that are new or changed since the run that wrote the fingerprint file.
+    //  -> Used by every loader but --bulk-load, which always loads everything (parse() rejects the 2 together).
+    //  -> Associations are only added, the ones a changed record dropped stay in the DB. (See RowFingerprints)
+    public String deltaFile = null;
+
+    // --profile-jdbc times every statement per loader function & prints them ranked at exit. (See JdbcProfiler)
+    public boolean profileJdbc = false;
+
+    // --bulk-load=<dir> writes per-table staging files to <dir> & loads them with LOAD DATA LOCAL INFILE.
+    public String bulkLoadDirectory = null;
+
+    public static LoaderOptions parse(String[] args) {
+        LoaderOptions options = new LoaderOptions();
+        boolean checkpointGiven = false;
+
+        for (String arg : args) {
+            if (!arg.startsWith("--")) {
+                throw new IllegalArgumentException("Unknown argument: " + arg);
+            }
+
+            int equals = arg.indexOf('=');
+            String name = equals == -1 ? arg.substring(2) : arg.substring(2, equals);
+            String value = equals == -1 ? null : arg.substring(equals + 1);
+
+            switch (name) {
+                case "file":
+                    options.file = text(name, value);
+                    break;
+                case "db-url":
+                    options.dbUrl = text(name, value);
+                    break;
+                case "user":
+                    options.user = text(name, value);
+                    break;
+                case "password":
+                    // --password= is an empty password, only a missing '=' is an error.
+                    if (value == null) {
+                        throw new IllegalArgumentException("--password needs a value (--password=...)");
+                    }
+                    options.password = value;
+                    break;
+                case "parallel":
+                    // --parallel on its own uses every core.
+                    options.parserThreads = value == null
+                            ? Runtime.getRuntime().availableProcessors()
+                            : count(name, value, 1);
+                    break;
+                case "byte-reader":
+                    options.byteReader = value == null ? "auto" : value;
+                    break;
+                case "chunk-mb":
+                    options.chunkBytes = megabytes(name, value, 1);
+                    break;
+                case "batch-size":
+                    options.batchSize = count(name, value, 1);
+                    break;
+                case "resolve-chunk":
+                    options.resolveChunk = count(name, value, 1);
+                    break;
+                case "pipeline":
+                    options.pipeline = true;
+                    break;
+                case "normalizer-threads":
+                    options.normalizerThreads = count(name, value, 1);
+                    break;
+                case "resolver-threads":
+                    options.resolverThreads = count(name, value, 1);
+                    break;
+                case "writer-threads":
+                    options.writerThreads = count(name, value, 1);
+                    break;
+                case "pipeline-batch":
+                    options.pipelineBatch = count(name, value, 1);
+                    break;
+                case "queue-size":
+                    options.queueSize = count(name, value, 1);
+                    break;
+                case "shards":
+                    // Shards are writers of the pipeline, so this turns it on as well.
+                    options.shards = count(name, value, 1);
+                    options.pipeline = true;
+                    break;
+                case "virtual-threads":
+                    options.virtualThreads = true;
+                    break;
+                case "pool-size":
+                    options.poolSize = count(name, value, 1);
+                    break;
+                case "task-batch":
+                    options.taskBatch = count(name, value, 1);
+                    break;
+                case "commit-every":
+                    // 0 turns it off again.
+                    options.commitEvery = count(name, value, 0);
+                    break;
+                case "checkpoint":
+                    options.checkpointFile = text(name, value);
+                    checkpointGiven = true;
+                    break;
+                case "memory-mb":
+                    // 0 turns it off again.
+                    options.memoryBudget = megabytes(name, value, 0);
+                    break;
+                case "delta":
+                    options.deltaFile = value == null ? "ReadData.fingerprints" : text(name, value);
+                    break;
+                case "profile-jdbc":
+                    options.profileJdbc = true;
+                    break;
+                case "bulk-load":
+                    options.bulkLoadDirectory = value == null ? "staging" : text(name, value);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option: --" + name);
+            }
+        }
+
+        /*
+        Only the sequential loader commits in windows & keeps a checkpoint.
+        The other loaders would load everything in autocommit & ignore both, so they're turned away instead.
+         */
+        String loader = loader(options);
+        if (loader != null && (options.commitEvery > 0 || checkpointGiven)) {
+            throw new IllegalArgumentException("--commit-every & --checkpoint only work with the sequential loader, not with " + loader);
+        }
+        // Same for --memory-mb, the other loaders never hold the whole file in memory anyway (--bulk-load stages it on disk).
+        if (loader != null && options.memoryBudget > 0) {
+            throw new IllegalArgumentException("--memory-mb only works with the sequential loader, not with " + loader);
+        }
+        if (options.bulkLoadDirectory != null && options.deltaFile != null) {
+            throw new IllegalArgumentException("--delta doesn't work with --bulk-load, it always loads every record");
+        }
+
+        return options;
+    }
+
+    /*
+        BELOW are the checks of the values, each 1 throws an IllegalArgumentException that names the option.
+            -> --batch-size instead of --batch-size=1000: "--batch-size needs a value".
+            -> --batch-size=0 or --pool-size=-1: "--pool-size must be > 0" (only --commit-every & --memory-mb take 0, it means off).
+     */
+
+    private static String text(String name, String value) {
+        if (value == null || value.isEmpty()) {
+            throw new IllegalArgumentException("--" + name + " needs a value (--" + name + "=...)");
+        }
+        return value;
+    }
+
+    // A whole number of at least 'min'.
+    private static int count(String name, String value, int min) {
+        long number = number(name, value, min);
+        if (number > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("--" + name + " must be at most " + Integer.MAX_VALUE + ", got " + value);
+        }
+        return (int) number;
+    }
+
+    // A number of MB of at least 'min', in bytes.
+    private static long megabytes(String name, String value, int min) {
+        long number = number(name, value, min);
+        if (number > Long.MAX_VALUE / (1024 * 1024)) {
+            throw new IllegalArgumentException("--" + name + " is too large, got " + value);
+        }
+        return number * 1024 * 1024;
+    }
+
+    private static long number(String name, String value, int min) {
+        long number;
+        try {
+            number = Long.parseLong(text(name, value).trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("--" + name + " needs a whole number, got " + value);
+        }
+        if (number < min) {
+            throw new IllegalArgumentException("--" + name + (min == 1 ? " must be > 0" : " must be >= " + min) + ", got " + value);
+        }
+        return number;
+    }
+
+    // The option picking a loader other than the sequential 1, in the order ReadData.load checks them (null = sequential).
+    private static String loader(LoaderOptions options) {
+        if (options.bulkLoadDirectory != null) {
+            return "--bulk-load";
+        }
+        if (options.pipeline) {
+            return options.shards > 1 ? "--shards" : "--pipeline";
+        }
+        if (options.virtualThreads) {
+            return "--virtual-threads";
+        }
+        return null;
+    }
+}
@@ -0,0 +1,144 @@
+/*
+File: LongHashSet.java
+Description: A set of primitive longs (open addressing, linear probing).
+Used to remember which (content, other ID) pairs are already in an associative table:
+both ints are packed into 1 long, so no Integer/String objects are created per pair.
+
+Collaborators: Jaylin Jack
+ */
+public class LongHashSet {
+
+    // 0 marks an empty slot, so the key 0 is tracked on its own.
+    private long[] keys;
+    private boolean containsZero = false;
+    private int size = 0;
+    private int mask;
+    private int resizeAt;
+
+    public LongHashSet() {
+        this(1024);
+    }
+
+    public LongHashSet(int expected) {
+        int capacity = Integer.highestOneBit(Math.max(16, expected * 2 - 1)) << 1;
+        allocate(capacity);
+    }
+
+    // Pack 2 ints into 1 long: first in the high 32 bits, second in the low 32 bits.
+    public static long pack(int first, int second) {
+        return ((long) first << 32) | (second & 0xFFFFFFFFL);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean contains(long key) {
+        if (key == 0) {
+            return containsZero;
+        }
+
+        int slot = hash(key) & mask;
+        while (keys[slot] != 0) {
+            if (keys[slot] == key) {
+                return true;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return false;
+    }
+
+    // Returns true if the key was not in the set yet.
+    public boolean add(long key) {
+        if (key == 0) {
+            if (containsZero) {
+                return false;
+            }
+            containsZero = true;
+            size++;
+            return true;
+        }
+
+        int slot = hash(key) & mask;
+        while (keys[slot] != 0) {
+            if (keys[slot] == key) {
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        keys[slot] = key;
+        if (++size >= resizeAt) {
+            rehash(keys.length * 2);
+        }
+        return true;
+    }
+
+    // Returns true if the key was in the set.
+    public boolean remove(long key) {
+        if (key == 0) {
+            if (!containsZero) {
+                return false;
+            }
+            containsZero = false;
+            size--;
+            return true;
+        }
+
+        int slot = hash(key) & mask;
+        while (keys[slot] != key) {
+            if (keys[slot] == 0) {
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        // Shift the keys after it back into the gap, so no other key's probe runs into an empty slot too early.
+        //  -> A key moves when the gap is between its own slot (hash) & where it sits now.
+        int gap = slot;
+        int next = (gap + 1) & mask;
+        while (keys[next] != 0) {
+            int home = hash(keys[next]) & mask;
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                keys[gap] = keys[next];
+                gap = next;
+            }
+            next = (next + 1) & mask;
+        }
+        keys[gap] = 0;
+        size--;
+        return true;
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        mask = capacity - 1;
+        // Keep the table at most 50% full so probes stay short.
+        resizeAt = capacity / 2;
+    }
+
+    private void rehash(int capacity) {
+        long[] old = keys;
+        allocate(capacity);
+
+        for (long key : old) {
+            if (key != 0) {
+                int slot = hash(key) & mask;
+                while (keys[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = key;
+            }
+        }
+    }
+
+    // Mix the bits (MurmurHash3 finalizer) so sequential IDs don't cluster.
+    private static int hash(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb93fe53b2ca5L;
+        key ^= key >>> 33;
+        return (int) key;
+    }
+}
@@ -0,0 +1,282 @@
+/*
+File: ParallelCsvReader.java
+Description: Reads a large catalog CSV on every core.
+The file is memory-mapped and split into byte ranges (chunks) that always start at the beginning of a record,
+each chunk is parsed on its own thread by a CsvRecordReader (ByteCsvReader with --byte-reader),
+and the records are handed back in file order so ReadData can clean them exactly like the single thread reader.
+
+Collaborators: Jaylin Jack
+ */
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.*;
+
+
+/*
+    How the safe record boundaries are found, with the same 4 states CsvRecordReader walks through
+    (so a '"' in the middle of an unquoted value, I.E. 5'10", is a plain character here too):
+    1. Split the file into equal byte ranges (in parallel). Nobody knows yet which state a range starts in,
+       so each range is walked from all 4 states at once: the result is the state it ends in for each of them.
+       (4 states x 2 bits = 1 byte, so each byte of the file is 1 table lookup. See TRANSITIONS)
+    2. The 1st range starts at FIELD_START, so going through the results in order gives
+       the exact state every range starts in.
+    3. From the start of each range walk forward (from that state) to the first '\n' that is NOT inside quotes.
+       The next record starts right after it, even when a quoted description contains newlines.
+*/
+
+public class ParallelCsvReader implements CsvRecordSource {
+
+    // The states of CsvRecordReader.
+    private static final int FIELD_START = 0;
+    private static final int UNQUOTED = 1;
+    private static final int QUOTED = 2;
+    private static final int QUOTE_IN_QUOTED = 3;
+
+    // What a byte is to the states: '"', ',', a line end ('\n' or '\r') or anything else.
+    private static final int QUOTE = 0;
+    private static final int COMMA = 1;
+    private static final int LINE_END = 2;
+    private static final int OTHER = 3;
+    private static final byte[] KINDS = new byte[256];
+
+    // NEXT_STATE[state][kind], the same moves CsvRecordReader.next() makes.
+    private static final int[][] NEXT_STATE = {
+            // '"'            ','          line end     other
+            {QUOTED,          FIELD_START, FIELD_START, UNQUOTED},  // FIELD_START
+            {UNQUOTED,        FIELD_START, FIELD_START, UNQUOTED},  // UNQUOTED (a '"' here is kept as is)
+            {QUOTE_IN_QUOTED, QUOTED,      QUOTED,      QUOTED},    // QUOTED
+            {QUOTED,          FIELD_START, FIELD_START, UNQUOTED}   // QUOTE_IN_QUOTED ("" or the closing quote)
+    };
+
+    /*
+        1. A walk from all 4 states at once is 1 byte: bits 2s & 2s + 1 are the state the walk that started in s is in now.
+        TRANSITIONS[walk * 4 + kind] is that walk after 1 more byte.
+     */
+    private static final int IDENTITY = FIELD_START | UNQUOTED << 2 | QUOTED << 4 | QUOTE_IN_QUOTED << 6;
+    private static final byte[] TRANSITIONS = new byte[256 * 4];
+
+    static {
+        Arrays.fill(KINDS, (byte) OTHER);
+        KINDS['"'] = QUOTE;
+        KINDS[','] = COMMA;
+        KINDS['\n'] = LINE_END;
+        KINDS['\r'] = LINE_END;
+
+        for (int walk = 0; walk < 256; walk++) {
+            for (int kind = 0; kind < 4; kind++) {
+                int next = 0;
+                for (int state = 0; state < 4; state++) {
+                    next |= NEXT_STATE[stateAfter(walk, state)][kind] << (2 * state);
+                }
+                TRANSITIONS[walk * 4 + kind] = (byte) next;
+            }
+        }
+    }
+
+    // The state a walk is in when it started in 'state'.
+    private static int stateAfter(int walk, int state) {
+        return (walk >>> (2 * state)) & 3;
+    }
+
+    private final FileChannel channel;
+    private final ExecutorService pool;
+
+    // chunk i is the byte range [boundaries[i], boundaries[i + 1])
+    private final long[] boundaries;
+
+    // Chunks being parsed right now, oldest first. Only a few are kept in flight so memory stays bounded.
+    private final ArrayDeque<Future<List<String[]>>> inFlight = new ArrayDeque<>();
+    private final int window;
+    private int nextChunk = 0;
+
+    private Iterator<String[]> current = Collections.emptyIterator();
+
+    // The CsvByteScanner of --byte-reader, null to parse the chunks with CsvRecordReader.
+    private final String byteScanner;
+
+    public ParallelCsvReader(String file, int threads, long chunkSize) throws IOException {
+        this(file, threads, chunkSize, null);
+    }
+
+    public ParallelCsvReader(String file, int threads, long chunkSize, String byteScanner) throws IOException {
+        this.byteScanner = byteScanner;
+        this.channel = FileChannel.open(Paths.get(file), StandardOpenOption.READ);
+        this.pool = Executors.newFixedThreadPool(threads);
+        this.window = threads * 2;
+
+        try {
+            this.boundaries = findBoundaries(channel.size(), Math.max(chunkSize, 1));
+        } catch (IOException e) {
+            release();
+            throw e;
+        }
+    }
+
+    // Number of chunks the file was split into.
+    public int getChunkCount() {
+        return boundaries.length - 1;
+    }
+
+    private long[] findBoundaries(long size, long chunkSize) throws IOException {
+        int ranges = (int) Math.max(1, (size + chunkSize - 1) / chunkSize);
+
+        // 1.
+        List<Future<Integer>> walks = new ArrayList<>(ranges);
+        for (int i = 0; i < ranges; i++) {
+            long start = i * chunkSize;
+            long end = Math.min(size, start + chunkSize);
+            walks.add(pool.submit(() -> walk(start, end)));
+        }
+
+        long[] boundaries = new long[ranges + 1];
+        boundaries[ranges] = size;
+
+        // 2. & 3.
+        int state = FIELD_START;
+        for (int i = 0; i < ranges; i++) {
+            if (i > 0) {
+                long start = i * chunkSize;
+                if (boundaries[i - 1] >= start) {
+                    // The previous chunk's record already runs past this range, so it is left empty.
+                    boundaries[i] = boundaries[i - 1];
+                } else {
+                    boundaries[i] = nextRecordStart(start, size, state);
+                }
+            }
+            state = stateAfter(get(walks.get(i)), state);
+        }
+
+        return boundaries;
+    }
+
+    // 1. The walk of bytes [start, end) from every state.
+    private int walk(long start, long end) throws IOException {
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+        int walk = IDENTITY;
+        for (int i = 0, length = buffer.limit(); i < length; i++) {
+            walk = TRANSITIONS[walk * 4 + KINDS[buffer.get(i) & 0xFF]] & 0xFF;
+        }
+        return walk;
+    }
+
+    // 3. Position right after the first '\n' outside of quotes, starting at 'start' in 'state'.
+    private long nextRecordStart(long start, long size, int state) throws IOException {
+        long position = start;
+        ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+
+        while (position < size) {
+            buffer.clear();
+            int read = channel.read(buffer, position);
+            if (read <= 0) {
+                break;
+            }
+
+            for (int i = 0; i < read; i++) {
+                byte b = buffer.get(i);
+                if (b == '\n' && state != QUOTED) {
+                    return position + i + 1;
+                }
+                state = NEXT_STATE[state][KINDS[b & 0xFF]];
+            }
+            position += read;
+        }
+
+        return size;
+    }
+
+    // Parse every record of one chunk.
+    private List<String[]> parseChunk(long start, long end) throws IOException {
+        List<String[]> records = new ArrayList<>();
+        if (end <= start) {
+            return records;
+        }
+
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+
+        // Each chunk gets its own scanner, it keeps the quote state of the chunk.
+        try (CsvRecordSource reader = byteScanner != null
+                ? new ByteCsvReader(new ByteBufferInputStream(buffer), CsvByteScanner.create(byteScanner))
+                : new CsvRecordReader(new InputStreamReader(new ByteBufferInputStream(buffer), StandardCharsets.UTF_8))) {
+            String[] values;
+            while ((values = reader.next()) != null) {
+                records.add(values);
+            }
+        }
+        return records;
+    }
+
+    @Override
+    public String[] next() throws IOException {
+        while (!current.hasNext()) {
+            // Keep the pool busy with the chunks after the one we are waiting on.
+            while (inFlight.size() < window && nextChunk < getChunkCount()) {
+                long start = boundaries[nextChunk];
+                long end = boundaries[nextChunk + 1];
+                inFlight.add(pool.submit(() -> parseChunk(start, end)));
+                nextChunk++;
+            }
+
+            if (inFlight.isEmpty()) {
+                return null;
+            }
+            current = get(inFlight.poll()).iterator();
+        }
+
+        return current.next();
+    }
+
+    private static <T> T get(Future<T> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while reading chunk");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        release();
+    }
+
+    // Private, so the constructor can clean up without calling an overridable method.
+    private void release() throws IOException {
+        pool.shutdownNow();
+        channel.close();
+    }
+
+    // Lets an InputStreamReader decode UTF-8 straight out of a mapped chunk.
+    private static class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            length = Math.min(length, buffer.remaining());
+            buffer.get(bytes, offset, length);
+            return length;
+        }
+    }
+}
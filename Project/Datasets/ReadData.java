@@ -8,6 +8,7 @@ ContentActors, ContentCountry, Content_Availability, Content_Release, Rating
 Collaborators: Jaylin Jack
  */
 import java.io.*;
+import java.nio.charset.StandardCharsets;
 import java.sql.*;
 import java.util.*;
 
@@ -34,74 +35,29 @@ public class ReadData {
     public static final int genre = 10;
     public static final int contentDescription = 11;
 
-    // This function gets the number value for each month.
-    //  -> Useful for putting the date into SQL DATE format.
-    public static String getMonth(String month) {
-        month = month.trim();
-        switch (month) {
-            case "January":
-                return "01";
-            case "February":
-                return "02";
-            case "March":
-                return "03";
-            case "April":
-                return "04";
-            case "May":
-                return "05";
-            case "June":
-                return "06";
-            case "July":
-                return "07";
-            case "August":
-                return "08";
-            case "September":
-                return "09";
-            case "October":
-                return "10";
-            case "November":
-                return "11";
-            case "December":
-                return "12";
-            default:
-
-        }
-
-
-        return "Not a month";
-    }
-
-    // Formats any date in Month Day, Year format into SQL Date format.
-    public static String getDateFormatted(String date){
-        // date will be a toString, so it will have []. So remove them
-        date = date.substring(1, date.length() - 1);
+    // Rating & Director I created for content that don't have a Rating/Director in the CSV File.
+    //  -> InsertsBeforeReadData.sql gives both of them the ID 1.
+    public static final String DEFAULT_RATING = "NEEDS REVISION";
+    public static final String MULTIPLE_DIRECTORS = "Multiple Directors";
 
-        int length = date.length();
-        // Extract Year from release_date in CSV. & Remove the Year & ', ' from date
-        String year = date.substring(length - 5, length);
-        date = date.substring(0, length - 6);
+    // 1 int code & 1 shared String per distinct name, format, rating ... (See StringDictionary)
+    public static final StringDictionary DICTIONARY = new StringDictionary();
+    public static final int DEFAULT_RATING_CODE = DICTIONARY.code(DEFAULT_RATING);
+    public static final int MULTIPLE_DIRECTORS_CODE = DICTIONARY.code(MULTIPLE_DIRECTORS);
 
+    // The genre IDs randomGenre hands out as the 0th element of the genreTags rows, so each row doesn't make a new String for it.
+    private static final String[] GENRES = {"1", "2", "3", "4", "5", "6", "7", "8", "9"};
 
-        length = date.length();
-        // Extract Day from release_date in CSV.
-        String day = date.substring(length - 2, length);
-
-
-        // This means the day is only 1 digit
-        if (day.contains(" ")){
-            day = "0" + day.substring(1);
-            date = date.substring(0, length - 2);
-        }else{
-            date = date.substring(0, length - 3);
+    // Formats any date in Month Day, Year format into SQL Date format.
+    //  -> "September 25, 2021" becomes "2021-09-25"
+    //  -> Read character by character by ReleaseDates, a date that was seen before allocates nothing.
+    //  -> Anything that isn't a date gives back null, so no Release is linked to it.
+    public static String getDateFormatted(String date){
+        int epochDay = ReleaseDates.parse(date);
+        if (epochDay == ReleaseDates.INVALID) {
+            return null;
         }
-
-        // GET the number for the month.
-        String month = getMonth(date);
-
-
-
-        return year + "-" + month + "-" + day;
-
+        return ReleaseDates.isoDate(epochDay);
     }
 
 
@@ -114,78 +70,42 @@ public class ReadData {
 
 
 
-    // Get all csv values depending on the columns.
-    public static String getEntireLine(List<String> l1){
-        String cleanedWord = "";
-        for (int i = 0; i < l1.size() ; i++){
-            // Add the csv back to the previous csv value
-            if (i == l1.size() - 1){
-                cleanedWord = cleanedWord.concat(l1.get(i));
-            }else{
-                // Include the ',' back into the sentence since we are not at the end of the sentence.
-                cleanedWord = cleanedWord.concat(l1.get(i) + ",");
+    // Split a list of names (cast, country, listed_in) into the list, one trimmed name per element.
+    //  -> Empty names (I.E. a trailing ', ') are skipped.
+    //  -> Each name is added as its dictionary code, so a repeated name is never a new String.
+    public static void addNames(CatalogRecord.IntList codes, String value){
+        int start = 0;
+        while (start <= value.length()) {
+            int end = value.indexOf(',', start);
+            if (end == -1) {
+                end = value.length();
             }
 
+            // Trim without substring-ing, the dictionary gives back the shared String of the name.
+            int nameStart = start;
+            int nameEnd = end;
+            while (nameStart < nameEnd && value.charAt(nameStart) <= ' ') {
+                nameStart++;
+            }
+            while (nameEnd > nameStart && value.charAt(nameEnd - 1) <= ' ') {
+                nameEnd--;
+            }
+            if (nameStart < nameEnd) {
+                codes.add(DICTIONARY.code(value, nameStart, nameEnd));
+            }
+            start = end + 1;
         }
-        return trimQuotes(cleanedWord);
-    }
-
-    // Function to trim the Quotes off csv values.
-    public static String trimQuotes(String str){
-
-        if (str.length() < 2){
-            return str;
-        }
-
-        if (str.startsWith("\"") && str.endsWith("\"")){
-            str = str.substring(1, str.length() - 1);
-        }else if (str.startsWith("\"")){
-            str = str.substring(1);
-        }else if(str.endsWith("\"")){
-            str = str.substring(0, str.length() - 1);
-        }
-
-        return str;
-    }
-
-    public static void columnSwitch(int caseNum,List<String> contentRow, List<String> l1, String value){
-        switch (caseNum) {
-
-
-            case contentFormat:
-            case title:
-            case duration:
-            case releaseYear:
-            case contentDescription:
-            case rating:
-                // IN all these cases just simply add the last value and clean the line into the contentRow.
-                l1.add(value);
-                contentRow.add(getEntireLine(l1));
-                break;
-            case director:
-                // Assign director value 1 "Multiple Directors" value.
-                contentRow.add("1");
-            case cast:
-            case genre:
-                l1.add(value);
-                break;
-            case country:
-                break;
-            case dateAdded:
-                value = value.substring(1);
-                l1.add(value);
-                break;
-            default:
-        }
-
     }
 
     // Assigns the genre depending on Content ID.
     // Content is given a random Genre.
-    public static String randomGenre(String content_id){
-        int id = Integer.parseInt(content_id);
-        int genre = (id % 9) + 1;
-        return (String.valueOf(genre));
+    public static int randomGenre(int content_id){
+        return (content_id % 9) + 1;
+    }
+
+    // The genre ID as the shared String the genreTags rows start with.
+    public static String genreName(int genreID){
+        return GENRES[genreID - 1];
     }
 
     /*
@@ -199,9 +119,10 @@ public class ReadData {
             2A. If it does then get the ID returned from SELECT and place in the HashMap and exit.
         3. If value doesn't exist in either then INSERT it into the Table.
 
+        The SELECT & INSERT of each table are prepared once per Connection & reused (See StatementRegistry).
     */
 
-    public static int getContentFormatID_or_INSERT(HashMap<String, Integer> content_format_map, String formatDescription, Connection conn){
+    public static int getContentFormatID_or_INSERT(Map<String, Integer> content_format_map, String formatDescription, Connection conn){
 
         // 1.
         if (content_format_map.containsKey(formatDescription)){
@@ -214,27 +135,32 @@ public class ReadData {
 
         String checkQuery = "SELECT content_formatID FROM Content_Format WHERE description = ?";
 
-        try (PreparedStatement findContentFormat = conn.prepareStatement(checkQuery)) {
+        try {
+            PreparedStatement findContentFormat = StatementRegistry.of(conn).prepare(checkQuery);
 
             // 2.
             findContentFormat.setString(1, formatDescription);
 
 
+            long start = System.nanoTime();
             try (ResultSet result = findContentFormat.executeQuery()){
+                LoaderMetrics.GLOBAL.roundTrip("Content_Format", start);
 
                 if(!result.next()) {
-                    try (PreparedStatement insertContentFormat = conn.prepareStatement(insertQuery, Statement.RETURN_GENERATED_KEYS)) {
-                        // 3.
-                        insertContentFormat.setString(1, formatDescription);
-                        int rowsAffected = insertContentFormat.executeUpdate();
-
-                        if (rowsAffected > 0) {
-                            // Retrieve the auto-generated keys (insert ID)
-                            ResultSet generatedKeys = insertContentFormat.getGeneratedKeys();
-                            if (generatedKeys.next()) {
-                                int content_formatID = generatedKeys.getInt(1);
-                                return content_formatID;
-                            }
+                    PreparedStatement insertContentFormat = StatementRegistry.of(conn).prepare(insertQuery, Statement.RETURN_GENERATED_KEYS);
+                    // 3.
+                    insertContentFormat.setString(1, formatDescription);
+                    start = System.nanoTime();
+                    int rowsAffected = insertContentFormat.executeUpdate();
+                    LoaderMetrics.GLOBAL.roundTrip("Content_Format", start);
+
+                    if (rowsAffected > 0) {
+                        // Retrieve the auto-generated keys (insert ID)
+                        ResultSet generatedKeys = insertContentFormat.getGeneratedKeys();
+                        if (generatedKeys.next()) {
+                            int content_formatID = generatedKeys.getInt(1);
+                            content_format_map.put(formatDescription, content_formatID);
+                            return content_formatID;
                         }
                     }
                 }else{
@@ -247,6 +173,7 @@ public class ReadData {
             }
         } catch(SQLException e) {
             e.printStackTrace();
+            LoaderMetrics.GLOBAL.writeFailed("Content_Format");
         }
 
 
@@ -254,7 +181,7 @@ public class ReadData {
 
     }
 
-    public static int getRatingID_or_INSERT(HashMap<String, Integer> rating_map, String ratingDescription, Connection conn) {
+    public static int getRatingID_or_INSERT(Map<String, Integer> rating_map, String ratingDescription, Connection conn) {
 
         // 1.
         if (rating_map.containsKey(ratingDescription)) {
@@ -267,31 +194,35 @@ public class ReadData {
 
         String checkQuery = "SELECT ratingID FROM Rating WHERE name = ?";
 
-        try (PreparedStatement findRating = conn.prepareStatement(checkQuery)) {
+        try {
+            PreparedStatement findRating = StatementRegistry.of(conn).prepare(checkQuery);
 
             // 2.
             findRating.setString(1, ratingDescription);
 
 
+            long start = System.nanoTime();
             try (ResultSet result = findRating.executeQuery()) {
+                LoaderMetrics.GLOBAL.roundTrip("Rating", start);
 
 
                 if (!result.next()) {
-                    try (PreparedStatement insertRating = conn.prepareStatement(insertQuery, Statement.RETURN_GENERATED_KEYS)) {
-                        // 3.
-                        insertRating.setString(1, ratingDescription);
-
-                        int rowsAffected = insertRating.executeUpdate();
-
-                        if (rowsAffected > 0) {
-                            // Retrieve the auto-generated keys (insert ID)
-                            ResultSet generatedKeys = insertRating.getGeneratedKeys();
-                            if (generatedKeys.next()) {
-                                int ratingID = generatedKeys.getInt(1);
-                                rating_map.put(ratingDescription, ratingID);
-
-                                return ratingID;
-                            }
+                    PreparedStatement insertRating = StatementRegistry.of(conn).prepare(insertQuery, Statement.RETURN_GENERATED_KEYS);
+                    // 3.
+                    insertRating.setString(1, ratingDescription);
+
+                    start = System.nanoTime();
+                    int rowsAffected = insertRating.executeUpdate();
+                    LoaderMetrics.GLOBAL.roundTrip("Rating", start);
+
+                    if (rowsAffected > 0) {
+                        // Retrieve the auto-generated keys (insert ID)
+                        ResultSet generatedKeys = insertRating.getGeneratedKeys();
+                        if (generatedKeys.next()) {
+                            int ratingID = generatedKeys.getInt(1);
+                            rating_map.put(ratingDescription, ratingID);
+
+                            return ratingID;
                         }
                     }
                 } else {
@@ -304,6 +235,7 @@ public class ReadData {
             }
         } catch (SQLException e) {
             e.printStackTrace();
+            LoaderMetrics.GLOBAL.writeFailed("Rating");
         }
 
 
@@ -311,7 +243,7 @@ public class ReadData {
 
     }
 
-    public static int getDirectorID_or_INSERT(HashMap<String, Integer> director_map, String directorName, Connection conn) {
+    public static int getDirectorID_or_INSERT(Map<String, Integer> director_map, String directorName, Connection conn) {
 
 
         // 1.
@@ -326,28 +258,32 @@ public class ReadData {
 
         String checkQuery = "SELECT directorID FROM Director WHERE name = ?";
 
-        try (PreparedStatement findDirector = conn.prepareStatement(checkQuery)) {
+        try {
+            PreparedStatement findDirector = StatementRegistry.of(conn).prepare(checkQuery);
             // 2.
             findDirector.setString(1, directorName);
 
 
+            long start = System.nanoTime();
             try (ResultSet result = findDirector.executeQuery()) {
+                LoaderMetrics.GLOBAL.roundTrip("Director", start);
 
                 if (!result.next()) {
-                    try (PreparedStatement insertDirector = conn.prepareStatement(insertQuery, Statement.RETURN_GENERATED_KEYS)) {
-                        // 3.
-                        insertDirector.setString(1, directorName);
+                    PreparedStatement insertDirector = StatementRegistry.of(conn).prepare(insertQuery, Statement.RETURN_GENERATED_KEYS);
+                    // 3.
+                    insertDirector.setString(1, directorName);
 
-                        int rowsAffected = insertDirector.executeUpdate();
+                    start = System.nanoTime();
+                    int rowsAffected = insertDirector.executeUpdate();
+                    LoaderMetrics.GLOBAL.roundTrip("Director", start);
 
-                        if (rowsAffected > 0) {
+                    if (rowsAffected > 0) {
 
-                            ResultSet generatedKeys = insertDirector.getGeneratedKeys();
-                            if (generatedKeys.next()) {
-                                int directorID = generatedKeys.getInt(1);
-                                director_map.put(directorName, directorID);
-                                return directorID;
-                            }
+                        ResultSet generatedKeys = insertDirector.getGeneratedKeys();
+                        if (generatedKeys.next()) {
+                            int directorID = generatedKeys.getInt(1);
+                            director_map.put(directorName, directorID);
+                            return directorID;
                         }
                     }
                 } else {
@@ -361,6 +297,7 @@ public class ReadData {
             }
         } catch (SQLException e) {
             e.printStackTrace();
+            LoaderMetrics.GLOBAL.writeFailed("Director");
         }
 
 
@@ -368,7 +305,7 @@ public class ReadData {
 
     }
 
-    public static int getActorID_or_INSERT(HashMap<String, Integer> map, String name, Connection conn) {
+    public static int getActorID_or_INSERT(Map<String, Integer> map, String name, Connection conn) {
 
 
         // 1.
@@ -383,28 +320,32 @@ public class ReadData {
 
         String checkQuery = "SELECT ActorID FROM Actor WHERE name = ?";
 
-        try (PreparedStatement findActor = conn.prepareStatement(checkQuery)) {
+        try {
+            PreparedStatement findActor = StatementRegistry.of(conn).prepare(checkQuery);
 
             // 2.
             findActor.setString(1, name);
 
+            long start = System.nanoTime();
             try (ResultSet result = findActor.executeQuery()) {
+                LoaderMetrics.GLOBAL.roundTrip("Actor", start);
 
                 if (!result.next()) {
-                    try (PreparedStatement insertActor = conn.prepareStatement(insertQuery, Statement.RETURN_GENERATED_KEYS)) {
-                        // 3.
-                        insertActor.setString(1, name);
+                    PreparedStatement insertActor = StatementRegistry.of(conn).prepare(insertQuery, Statement.RETURN_GENERATED_KEYS);
+                    // 3.
+                    insertActor.setString(1, name);
 
-                        int rowsAffected = insertActor.executeUpdate();
+                    start = System.nanoTime();
+                    int rowsAffected = insertActor.executeUpdate();
+                    LoaderMetrics.GLOBAL.roundTrip("Actor", start);
 
-                        if (rowsAffected > 0) {
+                    if (rowsAffected > 0) {
 
-                            ResultSet generatedKeys = insertActor.getGeneratedKeys();
-                            if (generatedKeys.next()) {
-                                int actorID = generatedKeys.getInt(1);
-                                map.put(name, actorID);
-                                return actorID;
-                            }
+                        ResultSet generatedKeys = insertActor.getGeneratedKeys();
+                        if (generatedKeys.next()) {
+                            int actorID = generatedKeys.getInt(1);
+                            map.put(name, actorID);
+                            return actorID;
                         }
                     }
                 } else {
@@ -416,6 +357,7 @@ public class ReadData {
             }
         } catch (SQLException e) {
             e.printStackTrace();
+            LoaderMetrics.GLOBAL.writeFailed("Actor");
         }
 
 
@@ -424,7 +366,7 @@ public class ReadData {
     }
 
 
-    public static int getTagID_or_INSERT(HashMap<String, Integer> map, String name, Connection conn) {
+    public static int getTagID_or_INSERT(Map<String, Integer> map, String name, Connection conn) {
 
 
         // 1.
@@ -438,28 +380,32 @@ public class ReadData {
 
         String checkQuery = "SELECT tagID FROM Tag WHERE description = ?";
 
-        try (PreparedStatement findTag = conn.prepareStatement(checkQuery)) {
+        try {
+            PreparedStatement findTag = StatementRegistry.of(conn).prepare(checkQuery);
 
             // 2.
             findTag.setString(1, name);
 
+            long start = System.nanoTime();
             try (ResultSet result = findTag.executeQuery()) {
+                LoaderMetrics.GLOBAL.roundTrip("Tag", start);
 
                 if (!result.next()) {
-                    try (PreparedStatement insertTag = conn.prepareStatement(insertQuery, Statement.RETURN_GENERATED_KEYS)) {
-                        // 3.
-                        insertTag.setString(1, name);
+                    PreparedStatement insertTag = StatementRegistry.of(conn).prepare(insertQuery, Statement.RETURN_GENERATED_KEYS);
+                    // 3.
+                    insertTag.setString(1, name);
 
-                        int rowsAffected = insertTag.executeUpdate();
+                    start = System.nanoTime();
+                    int rowsAffected = insertTag.executeUpdate();
+                    LoaderMetrics.GLOBAL.roundTrip("Tag", start);
 
-                        if (rowsAffected > 0) {
-                            ResultSet generatedKeys = insertTag.getGeneratedKeys();
-                            if (generatedKeys.next()) {
-                                int tagID = generatedKeys.getInt(1);
+                    if (rowsAffected > 0) {
+                        ResultSet generatedKeys = insertTag.getGeneratedKeys();
+                        if (generatedKeys.next()) {
+                            int tagID = generatedKeys.getInt(1);
 
-                                map.put(name, tagID);
-                                return tagID;
-                            }
+                            map.put(name, tagID);
+                            return tagID;
                         }
                     }
                 } else {
@@ -472,6 +418,7 @@ public class ReadData {
             }
         } catch (SQLException e) {
             e.printStackTrace();
+            LoaderMetrics.GLOBAL.writeFailed("Tag");
         }
 
 
@@ -479,7 +426,7 @@ public class ReadData {
 
     }
 
-    public static int getRelease_or_INSERT(HashMap<String, Integer> map, String date, String version, Connection conn) {
+    public static int getRelease_or_INSERT(Map<String, Integer> map, String date, String version, Connection conn) {
 
         // 1.
         if (map.containsKey(date)) {
@@ -492,31 +439,42 @@ public class ReadData {
 
         String checkQuery = "SELECT releaseID FROM `Release` WHERE release_date = ?";
 
-        try (PreparedStatement findReleaseDate = conn.prepareStatement(checkQuery)) {
+        // The date is bound as a DATE, so MySQL doesn't have to convert a String.
+        int epochDay = ReleaseDates.parse(date);
+        if (epochDay == ReleaseDates.INVALID) {
+            return -1;
+        }
+        java.sql.Date releaseDate = ReleaseDates.sqlDate(epochDay);
+
+        try {
+            PreparedStatement findReleaseDate = StatementRegistry.of(conn).prepare(checkQuery);
 
             // 2.
-            findReleaseDate.setString(1, date);
+            findReleaseDate.setDate(1, releaseDate);
 
 
+            long start = System.nanoTime();
             try (ResultSet result = findReleaseDate.executeQuery()) {
+                LoaderMetrics.GLOBAL.roundTrip("Release", start);
 
                 if (!result.next()) {
-                    try (PreparedStatement insertReleaseDate = conn.prepareStatement(insertQuery, Statement.RETURN_GENERATED_KEYS)) {
-                        // 3.
-                        insertReleaseDate.setString(1, date);
-                        insertReleaseDate.setString(2, version);
-
-                        int rowsAffected = insertReleaseDate.executeUpdate();
-
-                        if (rowsAffected > 0) {
-                            // Retrieve the auto-generated keys (insert ID)
-                            ResultSet generatedKeys = insertReleaseDate.getGeneratedKeys();
-                            if (generatedKeys.next()) {
-                                int releaseID = generatedKeys.getInt(1);
-
-                                map.put(date, releaseID);
-                                return releaseID;
-                            }
+                    PreparedStatement insertReleaseDate = StatementRegistry.of(conn).prepare(insertQuery, Statement.RETURN_GENERATED_KEYS);
+                    // 3.
+                    insertReleaseDate.setDate(1, releaseDate);
+                    insertReleaseDate.setString(2, version);
+
+                    start = System.nanoTime();
+                    int rowsAffected = insertReleaseDate.executeUpdate();
+                    LoaderMetrics.GLOBAL.roundTrip("Release", start);
+
+                    if (rowsAffected > 0) {
+                        // Retrieve the auto-generated keys (insert ID)
+                        ResultSet generatedKeys = insertReleaseDate.getGeneratedKeys();
+                        if (generatedKeys.next()) {
+                            int releaseID = generatedKeys.getInt(1);
+
+                            map.put(date, releaseID);
+                            return releaseID;
                         }
                     }
                 } else {
@@ -529,6 +487,7 @@ public class ReadData {
             }
         } catch (SQLException e) {
             e.printStackTrace();
+            LoaderMetrics.GLOBAL.writeFailed("Release");
         }
 
 
@@ -538,7 +497,7 @@ public class ReadData {
 
 
 
-    public static int getCountryID_or_INSERT(HashMap<String, Integer> map, String name, Connection conn) {
+    public static int getCountryID_or_INSERT(Map<String, Integer> map, String name, Connection conn) {
 
         // 1.
         if (map.containsKey(name)) {
@@ -551,29 +510,33 @@ public class ReadData {
 
         String checkQuery = "SELECT countryID FROM Country WHERE name = ?";
 
-        try (PreparedStatement findCountry = conn.prepareStatement(checkQuery)) {
+        try {
+            PreparedStatement findCountry = StatementRegistry.of(conn).prepare(checkQuery);
 
             // 2.
             findCountry.setString(1, name);
 
 
+            long start = System.nanoTime();
             try (ResultSet result = findCountry.executeQuery()) {
+                LoaderMetrics.GLOBAL.roundTrip("Country", start);
 
                 if (!result.next()) {
-                    try (PreparedStatement insertCountry = conn.prepareStatement(insertQuery, Statement.RETURN_GENERATED_KEYS)) {
-                        // 3.
-                        insertCountry.setString(1, name);
-
-                        int rowsAffected = insertCountry.executeUpdate();
-
-                        if (rowsAffected > 0) {
-                            // Retrieve the auto-generated keys (insert ID)
-                            ResultSet generatedKeys = insertCountry.getGeneratedKeys();
-                            if (generatedKeys.next()) {
-                                int countryID = generatedKeys.getInt(1);
-                                map.put(name, countryID);
-                                return countryID;
-                            }
+                    PreparedStatement insertCountry = StatementRegistry.of(conn).prepare(insertQuery, Statement.RETURN_GENERATED_KEYS);
+                    // 3.
+                    insertCountry.setString(1, name);
+
+                    start = System.nanoTime();
+                    int rowsAffected = insertCountry.executeUpdate();
+                    LoaderMetrics.GLOBAL.roundTrip("Country", start);
+
+                    if (rowsAffected > 0) {
+                        // Retrieve the auto-generated keys (insert ID)
+                        ResultSet generatedKeys = insertCountry.getGeneratedKeys();
+                        if (generatedKeys.next()) {
+                            int countryID = generatedKeys.getInt(1);
+                            map.put(name, countryID);
+                            return countryID;
                         }
                     }
                 } else {
@@ -585,6 +548,7 @@ public class ReadData {
             }
         } catch (SQLException e) {
             e.printStackTrace();
+            LoaderMetrics.GLOBAL.writeFailed("Country");
         }
 
 
@@ -593,959 +557,975 @@ public class ReadData {
     }
 
     /*
-        BELOW are insert functions which simply SELECTS if the values exists before inserting.
-        Once I figured out a way that worked for 1 Associative Entity, I did the same thing for every
-        Associative Entity in the DB.
+        BELOW are insert functions for every Associative Entity.
+        Each row is queued in the table's BatchWriter instead of being sent on its own,
+        the writer sends the rows once the batch is full (see BatchWriter & --batch-size).
+        The writer still skips pairs that are already in the DB, just like the old SELECT 1 before inserting.
+        A row that fails is printed & counted (LoaderMetrics.writeFailed), the load goes on with the next one.
     */
 
-    public static void insertContentActors(String contentID, int actorID, Connection conn){
-
-        String insertQuery = "INSERT INTO ContentActors (content, actor) VALUES (?, ?)";
-
-        String checkQuery = "SELECT 1 FROM ContentActors WHERE content = ? AND actor = ?";
-
-
-        try (PreparedStatement findContentActor = conn.prepareStatement(checkQuery)) {
-
-            // SELECT 1 FROM ContentActors Where content = contentID AND actor = actorID.
-            findContentActor.setString(1, contentID);
-            findContentActor.setInt(2, actorID);
-
-
-            try (ResultSet result = findContentActor.executeQuery()) {
-
-                // If no result is returned from SELECT then INSERT
-                if (!result.next()) {
-                    try (PreparedStatement insertContentActor = conn.prepareStatement(insertQuery)) {
-                        // INSERT INTO ContentActors (content, actor) VALUES (contentID, actorID)
-                        insertContentActor.setString(1, contentID);
-                        insertContentActor.setInt(2, actorID);
-
-                        int rowsAffected = insertContentActor.executeUpdate();
-                        if (rowsAffected > 0) {
-                            System.out.println("ContentActors inserted successfully");
-                        }
-
-
-                    }
-                }
-            }
+    public static void insertContentActors(int contentID, int actorID, AssociativeWriters writers){
+        try {
+            // INSERT INTO ContentActors (content, actor) VALUES (contentID, actorID)
+            writers.contentActors.add(contentID, actorID);
         } catch (SQLException e) {
             e.printStackTrace();
+            LoaderMetrics.GLOBAL.writeFailed("ContentActors");
         }
-
-
     }
 
-    public static void insertContentTags(String contentID, int tagID, Connection conn){
-
-        String insertQuery = "INSERT INTO ContentTags (content, tag) VALUES (?, ?)";
-
-
-        String checkQuery = "SELECT 1 FROM ContentTags WHERE content = ? AND tag = ?";
-
-
-
-        try (PreparedStatement findContentTags = conn.prepareStatement(checkQuery)) {
-
-            // SELECT 1 FROM ContentTags Where content = contentID AND tag = tagID;
-            findContentTags.setString(1, contentID);
-            findContentTags.setInt(2, tagID);
-
-
-            try (ResultSet result = findContentTags.executeQuery()) {
-
-                if (!result.next()) {
-                    try (PreparedStatement insertContentTags = conn.prepareStatement(insertQuery)) {
-                        // INSERT INTO ContentActors (content, actor) VALUES (contentID, tagID);
-                        insertContentTags.setString(1, contentID);
-                        insertContentTags.setInt(2, tagID);
-
-                        int rowsAffected = insertContentTags.executeUpdate();
-                        if (rowsAffected > 0) {
-                            System.out.println("ContentTags inserted successfully");
-                        }
-
-
-                    }
-                }
-            }
+    public static void insertContentTags(int contentID, int tagID, AssociativeWriters writers){
+        try {
+            // INSERT INTO ContentTags (content, tag) VALUES (contentID, tagID);
+            writers.contentTags.add(contentID, tagID);
         } catch (SQLException e) {
-
             e.printStackTrace();
+            LoaderMetrics.GLOBAL.writeFailed("ContentTags");
         }
-
-
     }
 
-    public static void insertGenreTags(String genreID, int tagID, Connection conn){
-
-        String insertQuery = "INSERT INTO GenreTags (genre, tag) VALUES (?, ?)";
-
-
-        String checkQuery = "SELECT 1 FROM GenreTags WHERE genre = ? AND tag = ?";
-
-
-
-        try (PreparedStatement findGenreTags = conn.prepareStatement(checkQuery)) {
-
-            // SELECT 1 FROM GenreTags Where genre = genreID AND tag = tagID;
-            findGenreTags.setString(1, genreID);
-            findGenreTags.setInt(2, tagID);
-
-            try (ResultSet result = findGenreTags.executeQuery()) {
-
-                if (!result.next()) {
-                    try (PreparedStatement insertGenreTags = conn.prepareStatement(insertQuery)) {
-                        // INSERT INTO GenreTags (genre, tags) VALUES (genreID, tagID);
-                        insertGenreTags.setString(1, genreID);
-                        insertGenreTags.setInt(2, tagID);
-
-                        int rowsAffected = insertGenreTags.executeUpdate();
-                        if (rowsAffected > 0) {
-                            System.out.println("GenreTags inserted successfully");
-                        }
-
-
-                    }
-                }
-            }
+    public static void insertGenreTags(int genreID, int tagID, AssociativeWriters writers){
+        try {
+            // INSERT INTO GenreTags (genre, tag) VALUES (genreID, tagID);
+            writers.genreTags.add(genreID, tagID);
         } catch (SQLException e) {
             e.printStackTrace();
+            LoaderMetrics.GLOBAL.writeFailed("GenreTags");
         }
-
-
     }
 
-    public static void insertContent_Country(String contentID, int countryID, Connection conn){
-
-        String insertQuery = "INSERT INTO ContentCountry (content, country) VALUES (?, ?)";
-
-
-        String checkQuery = "SELECT 1 FROM ContentCountry WHERE content = ? AND country = ?";
-
-
-
-        try (PreparedStatement findContentCountry = conn.prepareStatement(checkQuery)) {
-
-            // SELECT 1 FROM ContentCountry Where content = contentID AND country = countryID;
-            findContentCountry.setString(1, contentID);
-            findContentCountry.setInt(2, countryID);
-
-            try (ResultSet result = findContentCountry.executeQuery()) {
-
-                if (!result.next()) {
-                    try (PreparedStatement insertContentCountry = conn.prepareStatement(insertQuery)) {
-                        // INSERT INTO ContentCountry (content, country) VALUES (contentID, countryID);
-                        insertContentCountry.setString(1, contentID);
-                        insertContentCountry.setInt(2, countryID);
-
-                        int rowsAffected = insertContentCountry.executeUpdate();
-
-                        if (rowsAffected > 0) {
-                            System.out.println("ContentCountry inserted successfully");
-                        }
-
-
-                    }
-                }
-            }
+    public static void insertContent_Country(int contentID, int countryID, AssociativeWriters writers){
+        try {
+            // INSERT INTO ContentCountry (content, country) VALUES (contentID, countryID);
+            writers.contentCountry.add(contentID, countryID);
         } catch (SQLException e) {
             e.printStackTrace();
+            LoaderMetrics.GLOBAL.writeFailed("ContentCountry");
         }
-
-
     }
 
     // This function was implemented purely for 11. Refresh Popular Content Ranking
     // I needed a way of making sure a user has watched half of the content
     // This way I can have a top 10 for each genre.
-    public static void insertWatch_History(String contentID, int userID, Connection conn){
+    public static void insertWatch_History(int contentID, int userID, Connection conn){
 
         String insertQuery = "INSERT INTO Watch_History (content, user) VALUES (?, ?)";
 
 
-        try (PreparedStatement insertWatchHistory = conn.prepareStatement(insertQuery)) {
+        try {
+            PreparedStatement insertWatchHistory = StatementRegistry.of(conn).prepare(insertQuery);
             // INSERT INTO Watch_History (content, user) VALUES (contentID, userID);
-            insertWatchHistory.setString(1, contentID);
+            insertWatchHistory.setInt(1, contentID);
             insertWatchHistory.setInt(2, userID);
 
+            long start = System.nanoTime();
             int rowsAffected = insertWatchHistory.executeUpdate();
+            LoaderMetrics.GLOBAL.roundTrip("Watch_History", start);
 
             if (rowsAffected > 0) {
-                System.out.println("WatchHistory inserted successfully");
+                LoaderMetrics.GLOBAL.count("Watch_History inserted");
             }
 
 
         } catch (SQLException e) {
             e.printStackTrace();
+            LoaderMetrics.GLOBAL.writeFailed("Watch_History");
         }
 
     }
 
-    public static void insertContent_Availability(String contentID, int availabilityID, Connection conn){
-
-        String insertQuery = "INSERT INTO Content_Availability (content, availability) VALUES (?, ?)";
-
-
-        String checkQuery = "SELECT 1 FROM Content_Availability WHERE content = ? AND availability = ?";
-
-
-
-        try (PreparedStatement findContentAvailability = conn.prepareStatement(checkQuery)) {
-
-            // SELECT 1 FROM Content_Availability Where content = contentID AND availability = 1;
-            findContentAvailability.setString(1, contentID);
-            findContentAvailability.setInt(2, availabilityID);
-
-            try (ResultSet result = findContentAvailability.executeQuery()) {
-
-                if (!result.next()) {
-                    try (PreparedStatement insertContentAvailability = conn.prepareStatement(insertQuery)) {
-                        // INSERT INTO ContentAvailability (content, availability) VALUES (contentID, 1);
-                        insertContentAvailability.setString(1, contentID);
-                        insertContentAvailability.setInt(2, availabilityID);
-
-                        int rowsAffected = insertContentAvailability.executeUpdate();
-
-                        if (rowsAffected > 0) {
-                            System.out.println("Content_Availability inserted successfully");
-                        }
-
-
-                    }
-                }
-            }
+    public static void insertContent_Availability(int contentID, int availabilityID, AssociativeWriters writers){
+        try {
+            // INSERT INTO Content_Availability (content, availability) VALUES (contentID, 1);
+            writers.contentAvailability.add(contentID, availabilityID);
         } catch (SQLException e) {
             e.printStackTrace();
+            LoaderMetrics.GLOBAL.writeFailed("Content_Availability");
         }
-
-
     }
 
-    public static void insertContent_Directors(String contentID, int directorID, Connection conn){
-
-        String insertQuery = "INSERT INTO ContentDirectors (content, director) VALUES (?, ?)";
-
-
-        String checkQuery = "SELECT 1 FROM ContentDirectors WHERE content = ? AND director = ?";
-
-
-
-        try (PreparedStatement findContentAvailability = conn.prepareStatement(checkQuery)) {
-
-            // SELECT 1 FROM Content_Availability Where content = contentID AND availability = 1;
-            findContentAvailability.setString(1, contentID);
-            findContentAvailability.setInt(2, directorID);
-
-            try (ResultSet result = findContentAvailability.executeQuery()) {
-
-                if (!result.next()) {
-                    try (PreparedStatement insertContentAvailability = conn.prepareStatement(insertQuery)) {
-                        // INSERT INTO ContentAvailability (content, availability) VALUES (contentID, 1);
-                        insertContentAvailability.setString(1, contentID);
-                        insertContentAvailability.setInt(2, directorID);
-
-                        int rowsAffected = insertContentAvailability.executeUpdate();
-
-                        if (rowsAffected > 0) {
-                            System.out.println("Content_Directors inserted successfully");
-                        }
-
-
-                    }
-                }
-            }
+    public static void insertContent_Directors(int contentID, int directorID, AssociativeWriters writers){
+        try {
+            // INSERT INTO ContentDirectors (content, director) VALUES (contentID, directorID);
+            writers.contentDirectors.add(contentID, directorID);
         } catch (SQLException e) {
             e.printStackTrace();
+            LoaderMetrics.GLOBAL.writeFailed("ContentDirectors");
         }
-
-
     }
 
-    public static void insertContent_Release(String contentID, int releaseID, Connection conn){
-        String insertQuery = "INSERT INTO Content_Release (content, `release`) VALUES (?, ?)";
-
-        String checkQuery = "SELECT 1 FROM Content_Release WHERE content = ? AND `release` = ?";
-
-
-
-        try (PreparedStatement findContentRelease = conn.prepareStatement(checkQuery)) {
-
-            // SELECT 1 FROM ContentRelease Where content = contentID AND `release` = releaseID;
-            findContentRelease.setString(1, contentID);
-            findContentRelease.setInt(2, releaseID);
-
-
-            try (ResultSet result = findContentRelease.executeQuery()) {
-
-                if (!result.next()) {
-                    try (PreparedStatement insertContentRelease = conn.prepareStatement(insertQuery)) {
-                        // INSERT INTO ContentRelease (content, `release`) VALUES (contentID, releaseID);
-                        insertContentRelease.setString(1, contentID);
-                        insertContentRelease.setInt(2, releaseID);
-
-                        int rowsAffected = insertContentRelease.executeUpdate();
-
-                        if (rowsAffected > 0) {
-                            System.out.println("Content_Release inserted successfully");
-                        }
-
-
-                    }
-                }
-            }
+    public static void insertContent_Release(int contentID, int releaseID, AssociativeWriters writers){
+        try {
+            // INSERT INTO Content_Release (content, `release`) VALUES (contentID, releaseID);
+            writers.contentRelease.add(contentID, releaseID);
         } catch (SQLException e) {
             e.printStackTrace();
+            LoaderMetrics.GLOBAL.writeFailed("Content_Release");
         }
-
-
     }
 
     /*
-        insertContent is simple, Each attribute of Content has been inserted into a list and comes here to enter the DB.
-        The list has already been ordered properly for INSERT execution.
-        This list is then iterated element by element for each value of Content (id, format, title etc.)
-    */
+        insertContent is simple, Each attribute of Content is a typed field of the ContentRecord and comes here to enter the DB.
+        Every column is bound with its own type (see ContentRecord.bind), the director with setNull when there's none.
 
-    public static void insertContent(List<String> l1, Connection conn){
+        Whether the Content exists is answered by the bitmap of known contentIDs, not by the DB:
+            -> A new contentID is a plain INSERT.
+            -> A known contentID is an upsert on the primary key, so a changed row is updated in place.
+        Returns true when the Content is new.
+    */
+    public static boolean insertContent(ContentRecord content, ContentIdBitmap knownContent, Connection conn){
 
         // INSERT Statement for each Content.
         String insertQuery =
-                "INSERT INTO Content (contentID, format, title, director, release_year, rating, duration, genre, description) " +
-                        "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
-
-
-        // SELECT Statement to check if Content exists before INSERT.
-        String checkQuery = "SELECT contentID FROM Content WHERE " +
-                "contentID = ? AND format = ? AND title = ? AND director = ? AND " +
-                "release_year = ? AND rating = ? AND duration = ? AND genre = ? AND description = ?";
+                "INSERT INTO Content (" + ContentRecord.COLUMNS + ") VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+        // Same INSERT, but an existing contentID gets every other column replaced.
+        String upsertQuery = insertQuery + " ON DUPLICATE KEY UPDATE " +
+                "format = VALUES(format), title = VALUES(title), director = VALUES(director), " +
+                "release_year = VALUES(release_year), rating = VALUES(rating), duration = VALUES(duration), " +
+                "genre = VALUES(genre), description = VALUES(description)";
+
+        boolean known = knownContent.contains(content.contentID);
+
+        try {
+            PreparedStatement insertContent = StatementRegistry.of(conn).prepare(known ? upsertQuery : insertQuery);
+            // INSERT the content into the table.
+            content.bind(insertContent, 1);
+
+            long start = System.nanoTime();
+            int rowsAffected = insertContent.executeUpdate();
+            LoaderMetrics.GLOBAL.roundTrip("Content", start);
+
+            // For an upsert MySQL returns 1 for an insert, 2 for an update and 0 when nothing changed.
+            //  -> Counted instead of printed, a synchronous console write per row slowed every INSERT down. (See LoaderMetrics)
+            if (!known && rowsAffected > 0) {
+                LoaderMetrics.GLOBAL.count("Content inserted");
+            } else if (rowsAffected == 2) {
+                LoaderMetrics.GLOBAL.count("Content updated");
+            }
 
-        int i = 0;
+            knownContent.add(content.contentID);
+            return !known;
+        } catch (SQLException e) {
+            e.printStackTrace();
+            LoaderMetrics.GLOBAL.writeFailed("Content");
+        }
 
-        try (PreparedStatement check = conn.prepareStatement(checkQuery)) {
+        return false;
+    }
 
-            // SET the first element (ContentID) as contentID. then iterate the elements after.
-            check.setString(1, l1.get(title).trim());
-            for (int j = 0; j < l1.size(); j++){
-                if (l1.get(i).equals("NULL")){
-                    check.setNull(j + 1, java.sql.Types.INTEGER);
-                }else {
-                    check.setString(j + 1, l1.get(i));
+    /*
+        Cleans 1 CSV record into the ContentRecord & the lists of a CatalogRecord.
+        No DB work happens here, so this can run on any thread:
+            -> Format, Director & Rating are left as dictionary codes in the ContentRecord. (resolveContent finds their IDs)
+            -> Actors, Tags, Countries, Dates & Directors are left as dictionary codes in their lists.
+        An empty value is simply left out:
+            -> A Content without a director has none (NULL), without a rating it gets my own (NEEDS REVISION).
+            -> An associative list without names is empty, so it isn't inserted.
+     */
+    public static void normalizeRecord(String[] values, CatalogRecord record){
+        LoaderMetrics.GLOBAL.recordParsed();
+
+        ContentRecord content = record.content;
+
+        // This loop will iterate through each csv value for a record.
+        //      -> The reader already removed the quotes, so every value is the complete column value.
+        for (int itr = 0; itr < values.length && itr <= contentDescription; itr++) {
+            String value = values[itr].trim();
+
+            // If a value is left empty, only the rating needs something in its place.
+            if (value.isEmpty()) {
+                if (itr == rating) {
+                    content.ratingCode = DEFAULT_RATING_CODE;
                 }
+                continue;
             }
 
-            // If no result is returned from SELECT then INSERT
-            try (ResultSet result = check.executeQuery()) {
+            /*
+            Based on the current index we will insert the value into it's respective field or List.
+             */
+            switch (itr) {
+                // ContentID column
+                case contentID:
+                    /*
+                     What's Done:
+                     Remove the 's' from the ID values & keep the ID in the ContentRecord.
+                     (LoadWindow puts it back as the 0th Element of each helper row)
+                     */
+
+                    value = truncateID(value);
+                    try {
+                        content.contentID = Integer.parseInt(value);
+                    } catch (NumberFormatException e) {
+                        // Not a show_id, so the record is never complete.
+                    }
+                    break;
+                // Content_Format column
+                case contentFormat:
+                    /*
+                     What's Done:
+                     Pretty Simple, Get the 2nd value in the line & Add it to the ContentRecord
+                     */
+                    content.formatCode = DICTIONARY.code(value);
+                    break;
+                case title:
+                    // Add the title of show/movie only to the content.
+                    content.title = value;
+                    break;
+                case director:
+                    if (value.indexOf(',') != -1) {
+                        // Assign director value 1 "Multiple Directors" value.
+                        // Each director is then linked to the content through ContentDirectors.
+                        content.directorCode = MULTIPLE_DIRECTORS_CODE;
+                        addNames(record.directorCodes, value);
+                    } else {
+                        // Add the director of show/movie only to the content.
+                        content.directorCode = DICTIONARY.code(value);
+                    }
+                    break;
+                case cast:
+                    // Will add each actor to Actor Table & actorCodes (LIST)
+                    addNames(record.actorCodes, value);
+                    break;
+                case country:
+                    addNames(record.countryCodes, value);
+                    break;
+                case dateAdded:
+                    String date = getDateFormatted(value);
+                    if (date != null) {
+                        record.dateCodes.add(DICTIONARY.code(date));
+                    }
+                    break;
+                case releaseYear:
+                    try {
+                        content.releaseYear = Integer.parseInt(value);
+                    } catch (NumberFormatException e) {
+                        // Left MISSING, so the record isn't complete.
+                    }
+                    break;
+                case rating:
+                    /*
+                    There are certain cases where the duration is in the place where
+                    the rating should be.
+                    So in this case I add my custom Rating to the content,
+                     then  duration to the proper column
+                     */
+
+                    // Since both values are essential for Content I add both.
+                    if (value.endsWith(" min")) {
+                        content.ratingCode = DEFAULT_RATING_CODE;
+
+                        content.setDuration(DICTIONARY.intern(value));
+                        itr = duration;
+                    } else {
+                        content.ratingCode = DICTIONARY.code(value);
+                    }
+                    break;
+                case duration:
+                    // As listed above duration is essential for content.
+                    content.setDuration(DICTIONARY.intern(value));
+                    break;
+                case genre:
+                    /*
+                    This is where "Tags" go that describe Content.
+                    I have it labeled Genre, so I know to assign a random genre to the content.
+                    Then, I add the actual Tag values to tagCodes (linked to the content & the genre).
+                     */
+
+                    addNames(record.tagCodes, value);
+
+                    if (content.contentID != ContentRecord.MISSING) {
+                        content.genreID = randomGenre(content.contentID);
+                    }
+                    break;
+                case contentDescription:
+                    // Add the description since it's essential to the Content
+                    content.description = value;
+                    break;
+                default:
 
-                if (!result.next()) {
-                    try (PreparedStatement insertContent = conn.prepareStatement(insertQuery)) {
-                        // INSERT the content into the table.
-
-                        while (i < l1.size()) {
-                            if (l1.get(i).equals("NULL")){
-                                insertContent.setNull(i + 1, java.sql.Types.INTEGER);
-                            }else{
-                                insertContent.setString(i + 1, l1.get(i));
-                            }
+            }
+        }
+    }
 
-                            i++;
-                        }
+    /*
+        normalizeRecord of the record a ByteCsvReader is on, read straight from its bytes (--byte-reader).
+        Same result as normalizeRecord(reader.next(), record), but only what's kept becomes a String:
+            -> show_id & release_year are parsed from the bytes, the 's' is skipped instead of substring-ed.
+            -> Formats, ratings, durations & every name are looked up in the DICTIONARY by their bytes,
+               only a name that was never seen before is decoded. The record gets their codes.
+            -> The date is parsed from the bytes, the title & description are the only Strings made every time.
+     */
+    public static void normalizeRecord(ByteCsvReader reader, CatalogRecord record){
+        LoaderMetrics.GLOBAL.recordParsed();
+
+        ContentRecord content = record.content;
+        byte[] bytes = reader.getBuffer();
+
+        for (int itr = 0; itr < reader.getFieldCount() && itr <= contentDescription; itr++) {
+            // If a value is left empty, only the rating needs something in its place.
+            if (reader.isBlank(itr)) {
+                if (itr == rating) {
+                    content.ratingCode = DEFAULT_RATING_CODE;
+                }
+                continue;
+            }
 
-                        int rowsAffected = insertContent.executeUpdate();
+            int start = reader.getTrimmedStart(itr);
+            int end = reader.getTrimmedEnd(itr);
 
-                        if (rowsAffected > 0) {
-                            System.out.println("Content inserted successfully");
-                        }
+            switch (itr) {
+                case contentID:
+                    // "s123" -> 123
+                    int id = reader.getInt(itr, 1);
+                    if (id != ByteCsvReader.NOT_A_NUMBER) {
+                        content.contentID = id;
                     }
-                }
+                    // Otherwise not a show_id, so the record is never complete.
+                    break;
+                case contentFormat:
+                    content.formatCode = DICTIONARY.code(bytes, start, end);
+                    break;
+                case title:
+                    content.title = reader.getTrimmedString(itr);
+                    break;
+                case director:
+                    if (reader.contains(itr, ',')) {
+                        // Each director is linked to the content through ContentDirectors.
+                        content.directorCode = MULTIPLE_DIRECTORS_CODE;
+                        addNames(record.directorCodes, reader, itr);
+                    } else {
+                        content.directorCode = DICTIONARY.code(bytes, start, end);
+                    }
+                    break;
+                case cast:
+                    addNames(record.actorCodes, reader, itr);
+                    break;
+                case country:
+                    addNames(record.countryCodes, reader, itr);
+                    break;
+                case dateAdded:
+                    int epochDay = ReleaseDates.parse(reader.getAscii(itr));
+                    if (epochDay != ReleaseDates.INVALID) {
+                        record.dateCodes.add(DICTIONARY.code(ReleaseDates.isoDate(epochDay)));
+                    }
+                    break;
+                case releaseYear:
+                    int year = reader.getInt(itr, 0);
+                    if (year != ByteCsvReader.NOT_A_NUMBER) {
+                        content.releaseYear = year;
+                    }
+                    break;
+                case rating:
+                    // The duration in the rating's place, same as normalizeRecord.
+                    if (reader.endsWith(itr, " min")) {
+                        content.ratingCode = DEFAULT_RATING_CODE;
+
+                        content.setDuration(DICTIONARY.intern(bytes, start, end));
+                        itr = duration;
+                    } else {
+                        content.ratingCode = DICTIONARY.code(bytes, start, end);
+                    }
+                    break;
+                case duration:
+                    content.setDuration(DICTIONARY.intern(bytes, start, end));
+                    break;
+                case genre:
+                    addNames(record.tagCodes, reader, itr);
+
+                    if (content.contentID != ContentRecord.MISSING) {
+                        content.genreID = randomGenre(content.contentID);
+                    }
+                    break;
+                case contentDescription:
+                    content.description = reader.getTrimmedString(itr);
+                    break;
+                default:
+
             }
-        } catch (SQLException e) {
-            e.printStackTrace();
         }
+    }
 
+    // addNames of field i of a ByteCsvReader, each name is looked up by its bytes.
+    public static void addNames(CatalogRecord.IntList codes, ByteCsvReader reader, int field){
+        byte[] bytes = reader.getBuffer();
+        int start = reader.getValueStart(field);
+        int valueEnd = reader.getValueEnd(field);
 
+        while (start <= valueEnd) {
+            int end = start;
+            while (end < valueEnd && bytes[end] != ',') {
+                end++;
+            }
 
+            // Trim, spaces are never part of a multi-byte character.
+            int nameStart = start;
+            int nameEnd = end;
+            while (nameStart < nameEnd && bytes[nameStart] >= 0 && bytes[nameStart] <= ' ') {
+                nameStart++;
+            }
+            while (nameEnd > nameStart && bytes[nameEnd - 1] >= 0 && bytes[nameEnd - 1] <= ' ') {
+                nameEnd--;
+            }
+            if (nameStart < nameEnd) {
+                codes.add(DICTIONARY.code(bytes, nameStart, nameEnd));
+            }
+            start = end + 1;
+        }
     }
 
-    public static void addNull(List<String> l1, int i){
-        if (i == director){
-            l1.add("NULL");
-        }
+    // Find the IDs of the Format, Director & Rating codes of the content.
+    public static void resolveContent(CatalogRecord record, DimensionCaches caches, Connection conn){
+        ContentRecord content = record.content;
+
+        content.formatID = caches.formats.resolve(content.formatCode, conn);
 
-        // if no rating then i add my own (need revision)
-        if (i == rating){
-            l1.add("1");
+        if (content.directorCode != ContentRecord.MISSING) {
+            int directorID = caches.directors.resolve(content.directorCode, conn);
+            content.directorID = directorID == -1 ? ContentRecord.NO_DIRECTOR : directorID;
         }
 
+        content.ratingID = caches.ratings.resolve(content.ratingCode, conn);
     }
 
-    public static void nullActors(List<String> l1, int i){
-        if (i == cast) {
-            l1.add("NULL");
+    /*
+        Add the ID of every code of an associative list to ids.
+        Codes that couldn't be resolved (-1) are left out.
+     */
+    public static void resolveNames(CatalogRecord.IntList codes, CatalogRecord.IntList ids, DimensionResolver resolver,
+                                    Connection conn){
+        for (int j = 0; j < codes.size(); j++) {
+            int id = resolver.resolve(codes.get(j), conn);
+            if (id != -1) {
+                ids.add(id);
+            }
         }
     }
 
-    public static void nullCountry(List<String> l1, int i){
-        if (i == country) {
-            l1.add("NULL");
+    // The IDs of every code of every associative list worth inserting. (See CatalogRecord.IntList)
+    //  -> GenreTags uses the tagIDs too, they're the same tags.
+    public static void resolveAssociations(CatalogRecord record, DimensionCaches caches, Connection conn){
+        if (record.hasActors()) {
+            resolveNames(record.actorCodes, record.actorIDs, caches.actors, conn);
         }
-    }
-
-    public static void nullTags(List<String> l1, int i){
-        if (i == genre) {
-            l1.add("NULL");
+        if (record.hasTags()) {
+            resolveNames(record.tagCodes, record.tagIDs, caches.tags, conn);
+        }
+        if (record.hasCountries()) {
+            resolveNames(record.countryCodes, record.countryIDs, caches.countries, conn);
+        }
+        if (record.hasDate()) {
+            resolveNames(record.dateCodes, record.releaseIDs, caches.dates, conn);
+        }
+        if (record.hasDirectors()) {
+            resolveNames(record.directorCodes, record.directorIDs, caches.directors, conn);
         }
     }
 
-    public static void main(String[] args) {
-        String file = "Data.csv";
-        String line;
-        String csvSplitBy = ",";
-
-
-
-        String stringHelper = "";
-
-        List<String> contentRow = new ArrayList<>();
-        List<String> contentActors = new ArrayList<>();
-        List<String> contentDirectors = new ArrayList<>();
-        List<String> contentTags = new ArrayList<>();
-        List<String> genreTags = new ArrayList<>();
-        List<String> contentCountry = new ArrayList<>();
-        List<String> contentDate = new ArrayList<>();
-        List<List<String>> contentHelper = new ArrayList<>();
-        List<List<String>> actorHelper = new ArrayList<>();
-        List<List<String>> contentDirectorsHelper = new ArrayList<>();
-        List<List<String>> contentTagsHelper = new ArrayList<>();
-        List<List<String>> genreTagsHelper = new ArrayList<>();
-        List<List<String>> countryHelper = new ArrayList<>();
-        List<List<String>> dateHelper = new ArrayList<>();
-
-
-        /*
-        These HashMaps are essential to saving runtime
-            -> Once an element already exists in the table (After we add them)
-            -> It will be accessible along with the ID
-        The HashMaps have their own functions to complete this operation (Listed Above)
-        I created this HashMaps because each Map corresponds to a table that only has an ID and description/name
-            -> ONLY 2 VALUES
-         */
-        HashMap<String, Integer> content_format_map = new HashMap<>();
-        HashMap<String, Integer> rating_map = new HashMap<>();
-        HashMap<String, Integer> director_map = new HashMap<>();
-        HashMap<String, Integer> actor_map = new HashMap<>();
-        HashMap<String, Integer> tag_map = new HashMap<>();
-        HashMap<String, Integer> country_map = new HashMap<>();
-        HashMap<String, Integer> date_map = new HashMap<>();
-
-        // Rating & Director I created for content that don't have a Rating in the CSV File.
-        rating_map.put("NEEDS REVISION", 1);
-        director_map.put("Multiple Directors", 1);
-
-
-        String dbUrl = "jdbc:mysql://localhost:3306/MultimediaContentDB";
-        String user = "root";
-        String password = "Jade";
-
-        int itr = -1;
-        int i = 0;
-        try(Connection conn = DriverManager.getConnection(dbUrl, user, password)){
-            System.out.println("Connected");
-            try(BufferedReader br = new BufferedReader(new FileReader(file))){
-                line = br.readLine();
-                while(line != null) {
-                    i++;
-                    line = br.readLine();
-
-                    if (line == null) {
-                        break;
-                    }
-
-                    String[] values = line.split(csvSplitBy);
-
-                    itr = -1;
-
-                    // This loop will iterate through each csv value for a line.
-                    for (int j = 0; j < values.length; j++) {
-                        String value = values[j];
-
-                        // If a value is left empty, we will assign it as NULL.
-                        if (value.equals("")) {
-                            // Get to the current column value.
-                            itr++;
-                            addNull(contentRow, itr);
-
-                            nullCountry(contentCountry, itr);
-
-                            // ADD NULL TO THE LIST (IMPLEMENT LOGIC LATER)
-                            nullActors(contentActors, itr);
-                            nullTags(contentTags, itr);
-                            nullTags(genreTags, itr);
-
-
-                            // If we have a column value that starts with Quotations,
-                            // then we need to get every value in between the 2nd quotation.
-                        } else if (value.startsWith("\"") && value.length() == 1) {
-
-                            List<String> l1 = new ArrayList<>();
-
-
-                            String newValue = "";
-
-                            j++;
-                            value = values[j];
-                            newValue = newValue.concat(value);
-
-                            while (!newValue.endsWith("\"") && j < values.length - 1) {
-                                l1.add(value);
-                                j++;
-                                value = values[j];
-                                newValue = newValue.concat(value);
-                            }
-
-                            value = trimQuotes(value);
-                            l1.add(value);
-                            itr++;
-
-                            if (itr == country){
-                                contentCountry.addAll(l1);
-                            }
-
-                        } else if (value.charAt(0) == '"') {
-
-                            // This list is used to add each string within the quotes
-                            List<String> l1 = new ArrayList<>();
-
-                            // Get the next value and check if it has the matching quote.
-                            //      There is a special case where Cast Members may have their nickname in DOUBLE QUOTES.
-                            while (value.charAt((value.length() - 1)) != '"' || ((itr == cast - 1) && (value.charAt(value.length() - 2) == '"'))) {
-
-
-                                value = trimQuotes(value);
-                                // Add the value to the list
-                                l1.add(value);
-
-                                // Increment the j value
-                                j++;
-
-                                if (j < values.length) {
-                                    // GET the next value within the quotes.
-                                    value = values[j];
-
-                                } else {
-                                    // Value doesn't have a matching ending quote
-                                    // and we are done with the current line.
-
-
-                                    l1.add(value);
-
+    /*
+        Resolve every name of a batch of records (used by the pipeline & the virtual thread loader).
+            -> New names of the whole batch in bulk (See BulkDimensionResolver).
+            -> Then every lookup of resolveContent & resolveAssociations is a hit in the resolver's int[] of codes.
+        Any number of threads can resolve batches at once, each new name is INSERTED by 1 of them. (See DimensionResolver)
+     */
+    public static void resolveBatch(List<CatalogRecord> batch, DimensionCaches caches, int resolveChunk, Connection conn){
+        List<String> actorNames = new ArrayList<>();
+        List<String> tagNames = new ArrayList<>();
+        List<String> countryNames = new ArrayList<>();
+        List<String> releaseDates = new ArrayList<>();
+        List<String> directorNames = new ArrayList<>();
+
+        for (CatalogRecord record : batch) {
+            if (record.hasActors()) {
+                collectNames(actorNames, record.actorCodes, caches.actors);
+            }
+            if (record.hasTags()) {
+                collectNames(tagNames, record.tagCodes, caches.tags);
+            }
+            if (record.hasCountries()) {
+                collectNames(countryNames, record.countryCodes, caches.countries);
+            }
+            if (record.hasDate()) {
+                collectNames(releaseDates, record.dateCodes, caches.dates);
+            }
+            if (record.hasDirectors()) {
+                collectNames(directorNames, record.directorCodes, caches.directors);
+            }
+        }
 
-                                    for (int l = 0; l < l1.size() - 1; l++) {
-                                        stringHelper = stringHelper.concat(l1.get(l));
-                                        System.out.println(stringHelper);
-                                    }
-                                    String helperLine = br.readLine();
-                                    if (helperLine == null) {
-                                        break;
-                                    }
+        new BulkDimensionResolver(conn, "Actor", "name", "actorID", true, resolveChunk)
+                .resolve(caches.actors, actorNames);
+        new BulkDimensionResolver(conn, "Tag", "description", "tagID", true, resolveChunk)
+                .resolve(caches.tags, tagNames);
+        new BulkDimensionResolver(conn, "Country", "name", "countryID", true, resolveChunk)
+                .resolve(caches.countries, countryNames);
+        new BulkDimensionResolver(conn, "`Release`", "release_date", "releaseID", false, resolveChunk)
+                .resolve(caches.dates, releaseDates);
+        new BulkDimensionResolver(conn, "Director", "name", "directorID", true, resolveChunk)
+                .resolve(caches.directors, directorNames);
+
+        for (CatalogRecord record : batch) {
+            resolveContent(record, caches, conn);
+            resolveAssociations(record, caches, conn);
+        }
+    }
 
-                                    // line is now the next line.
-                                    line = helperLine;
+    // The names of the codes the resolver has no ID for yet (a code that was resolved before never becomes a String).
+    private static void collectNames(List<String> names, CatalogRecord.IntList codes, DimensionResolver resolver) {
+        for (int j = 0; j < codes.size(); j++) {
+            int code = codes.get(j);
+            if (!resolver.isResolved(code)) {
+                names.add(DICTIONARY.value(code));
+            }
+        }
+    }
 
-                                    value = stringHelper;
+    // Queue every associative row of 1 record in its table's BatchWriter.
+    public static void writeAssociations(CatalogRecord record, AssociativeWriters writers) {
+        int contentID = record.getContentID();
 
-                                    stringHelper = stringHelper.concat(line);
+        // INSERT into Content_Availability, with an availability of 1 ('Available').
+        insertContent_Availability(contentID, 1, writers);
 
-                                    j = 0;
+        if (record.hasActors()) {
+            for (int j = 0; j < record.actorIDs.size(); j++) {
+                insertContentActors(contentID, record.actorIDs.get(j), writers);
+            }
+        }
+        if (record.hasTags()) {
+            for (int j = 0; j < record.tagIDs.size(); j++) {
+                insertContentTags(contentID, record.tagIDs.get(j), writers);
+            }
+        }
+        if (record.hasGenreTags()) {
+            int genreID = record.content.genreID;
+            for (int j = 0; j < record.tagIDs.size(); j++) {
+                insertGenreTags(genreID, record.tagIDs.get(j), writers);
+            }
+        }
+        if (record.hasCountries()) {
+            for (int j = 0; j < record.countryIDs.size(); j++) {
+                insertContent_Country(contentID, record.countryIDs.get(j), writers);
+            }
+        }
+        if (record.hasDate()) {
+            for (int j = 0; j < record.releaseIDs.size(); j++) {
+                insertContent_Release(contentID, record.releaseIDs.get(j), writers);
+            }
+        }
+        if (record.hasDirectors()) {
+            for (int j = 0; j < record.directorIDs.size(); j++) {
+                insertContent_Directors(contentID, record.directorIDs.get(j), writers);
+            }
+        }
+    }
 
+    // Open the CSV with the single thread reader, or split it across parser threads when --parallel is used.
+    public static CsvRecordSource openRecordSource(LoaderOptions options) throws IOException {
+        return openRecordSource(options, null);
+    }
 
-                                    String[] helperValue = line.split(csvSplitBy);
-                                    values = helperValue;
+    /*
+        With a checkpoint the single thread reader is always used, since it's the one that knows its byte offset.
+        A resumed reader is opened right after the last committed record.
+     */
+    public static CsvRecordSource openRecordSource(LoaderOptions options, LoadCheckpoint checkpoint) throws IOException {
+        if (options.byteReader != null) {
+            // Checked here so a typo fails before the file is opened.
+            System.out.println("Reading bytes with the " + CsvByteScanner.create(options.byteReader).getName() + " scanner");
+        }
+        if (checkpoint != null) {
+            if (options.parserThreads > 1) {
+                System.out.println("--commit-every reads the file on 1 thread, --parallel is ignored");
+            }
+            FileInputStream in = new FileInputStream(options.file);
+            in.getChannel().position(checkpoint.getByteOffset());
+            if (options.byteReader != null) {
+                return new ByteCsvReader(in, CsvByteScanner.create(options.byteReader), 256 * 1024, checkpoint.getByteOffset());
+            }
+            return new CsvRecordReader(new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8)),
+                    64 * 1024, checkpoint.getByteOffset());
+        }
+        if (options.parserThreads > 1) {
+            return new ParallelCsvReader(options.file, options.parserThreads, options.chunkBytes, options.byteReader);
+        }
+        if (options.byteReader != null) {
+            return new ByteCsvReader(new FileInputStream(options.file), CsvByteScanner.create(options.byteReader));
+        }
+        return new CsvRecordReader(new BufferedReader(new FileReader(options.file, StandardCharsets.UTF_8)));
+    }
 
-                                    System.out.println("HValue" + helperValue[j]);
+    // Byte offset right after the last record of a reader opened with a checkpoint (1 of the single thread readers).
+    public static long getByteOffset(CsvRecordSource reader) {
+        if (reader instanceof ByteCsvReader) {
+            return ((ByteCsvReader) reader).getByteOffset();
+        }
+        return ((CsvRecordReader) reader).getByteOffset();
+    }
 
-                                    if (values[j].endsWith("\"") && value.endsWith(" ")) {
-                                        value = value.concat(values[j]);
-                                        itr++;
-                                    } else if (values[j].endsWith("\"")) {
-                                        value = value.concat(" " + values[j]);
-                                    } else {
-                                        while (!values[j].endsWith("\"") && j < values.length) {
-                                            value = value.concat(values[j]);
-                                            j++;
-                                        }
-                                        itr++;
-                                    }
+    /*
+        --commit-every: write the window & commit it, but only when every write of it made it in.
+        The insert* functions print a failed row & go on, so a plain commit would keep the rest of the window
+        and the checkpoint would move past rows that are missing.
+            -> Any failure since 'failuresBefore' (or an SQLException) rolls the whole window back & stops the load.
+            -> The checkpoint still points at the end of the last committed window, so the next run retries this one.
+     */
+    public static long commitWindow(LoadWindow window, long contentRows, long failuresBefore, DimensionCaches caches,
+                                    AssociativeWriters writers, LoaderOptions options, Connection conn) throws SQLException {
+        try {
+            contentRows = writeWindow(window, contentRows, caches, writers, options, conn);
+            writers.flush();
+
+            long failed = LoaderMetrics.GLOBAL.getWriteFailures() - failuresBefore;
+            if (failed > 0) {
+                throw new SQLException(failed + " writes of this window failed");
+            }
+        } catch (SQLException e) {
+            conn.rollback();
+            // The pairs of the window aren't in the tables anymore. (See BatchWriter.rolledBack)
+            writers.rolledBack();
+            throw new SQLException("Window rolled back, the checkpoint stays at the last commit", e);
+        }
 
+        conn.commit();
+        writers.committed();
+        return contentRows;
+    }
 
-                                    trimQuotes(value);
+    /*
+        Insert everything in the window: the Content rows first, then every associative entity.
+        contentRows is the number of Content rows written before this window, the new total is returned.
+     */
+    public static long writeWindow(LoadWindow window, long contentRows, DimensionCaches caches,
+                                   AssociativeWriters writers, LoaderOptions options, Connection conn) throws SQLException {
+        List<ContentRecord> contentHelper = window.contentHelper;
+        List<List<String>> actorHelper = window.actorHelper;
+        List<List<String>> contentDirectorsHelper = window.contentDirectorsHelper;
+        List<List<String>> contentTagsHelper = window.contentTagsHelper;
+        List<List<String>> genreTagsHelper = window.genreTagsHelper;
+        List<List<String>> countryHelper = window.countryHelper;
+        List<List<String>> dateHelper = window.dateHelper;
+
+        // Iterate through the entire List of Content rows.
+        for (int index = 0; index < contentHelper.size(); index++){
+
+            // Insert Content into DB by using the ContentRecord at the current index.
+            boolean inserted = insertContent(contentHelper.get(index), caches.content_ids, conn);
+
+            // THEN INSERT into Content_Availability, with an availability of 1.
+            //      -> This makes the status of the content 'Available'.
+            int contentID = contentHelper.get(index).contentID;
+            insertContent_Availability(contentID, 1, writers);
+
+            // I just simply want the tester user to watch half the content twice.
+            // Again this is for 11. testing.
+            //      -> Only for new Content, a re-run doesn't watch everything again.
+            if (inserted && contentRows + index > 4000) {
+                insertWatch_History(contentID, 5, conn);
+                insertWatch_History(contentID, 5, conn);
+            }
+        }
 
+        /*
+        EVERYTHING UNDER IS FOR ASSOCIATIVE ENTITIES.
+        2 FOR LOOPS
+            The Outer Loop to iterate through the List<List>
+            The inner loop to iterate through each value in the inner list.
+
+        GET the content ID which is always the 0th element.
+        THEN iterate through the row of List<String>
+            -> I.E. Iterate through the different Actor Names
+            -> THEN run our checker if the name exists in the DB already or not.
+                    -> This returns either the newly inserted ID or the id if the name exists.
+        AFTER we insert the content and the other value for all associative entites.
+         */
 
-                                }
+        /*
+        Before the loops, resolve every new name of each table in bulk (see BulkDimensionResolver).
+            -> A handful of multi-row INSERTs & SELECT ... IN (...) per table instead of 2 queries per name.
+            -> The get*ID_or_INSERT calls below then find every name in their HashMap.
+         */
+        new BulkDimensionResolver(conn, "Actor", "name", "actorID", true, options.resolveChunk)
+                .resolve(caches.actors, BulkDimensionResolver.namesOf(actorHelper));
+        new BulkDimensionResolver(conn, "Tag", "description", "tagID", true, options.resolveChunk)
+                .resolve(caches.tags, BulkDimensionResolver.namesOf(contentTagsHelper));
+        new BulkDimensionResolver(conn, "Country", "name", "countryID", true, options.resolveChunk)
+                .resolve(caches.countries, BulkDimensionResolver.namesOf(countryHelper));
+        new BulkDimensionResolver(conn, "`Release`", "release_date", "releaseID", false, options.resolveChunk)
+                .resolve(caches.dates, BulkDimensionResolver.namesOf(dateHelper));
+        new BulkDimensionResolver(conn, "Director", "name", "directorID", true, options.resolveChunk)
+                .resolve(caches.directors, BulkDimensionResolver.namesOf(contentDirectorsHelper));
+
+        for (int index = 0; index < actorHelper.size(); index++){
+            int contentID = Integer.parseInt(actorHelper.get(index).get(0));
+
+            for (int j = 1; j < actorHelper.get(index).size(); j++) {
+                String actorName = actorHelper.get(index).get(j);
+                String actorNameTrimmed = actorName.trim();
+                int actorID = caches.actors.resolve(actorNameTrimmed, conn);
+
+                if (actorID != -1){
+                    insertContentActors(contentID, actorID, writers);
+                }
 
-                                stringHelper = "";
-                            }
+            }
+        }
 
+        for (int index = 0; index < contentTagsHelper.size(); index++){
+            int contentID = Integer.parseInt(contentTagsHelper.get(index).get(0));
 
-                            itr++;
+            for (int j = 1; j < contentTagsHelper.get(index).size(); j++) {
+                String tagName = contentTagsHelper.get(index).get(j);
+                String tagNameTrimmed = tagName.trim();
+                int tagID = caches.tags.resolve(tagNameTrimmed, conn);
 
+                if (tagID != -1){
+                    insertContentTags(contentID, tagID, writers);
+                }
 
-                            value = trimQuotes(value);
+            }
+        }
 
 
-                            columnSwitch(itr, contentRow, l1, value);
 
-                            if (itr == director) {
-                                contentDirectors.addAll(l1);
-                            }
+        for (int index = 0; index < countryHelper.size(); index++){
+            int contentID = Integer.parseInt(countryHelper.get(index).get(0));
 
-                            if (itr == cast) {
-                                contentActors.addAll(l1);
-                            }
+            for (int j = 1; j < countryHelper.get(index).size(); j++) {
+                String countryName = countryHelper.get(index).get(j);
+                String countryNameTrimmed = countryName.trim();
+                int countryID = caches.countries.resolve(countryNameTrimmed, conn);
 
-                            if (itr == genre){
-                                contentTags.addAll(l1);
+                if (countryID != -1){
+                    insertContent_Country(contentID, countryID, writers);
+                }
 
-                                String randomGenre = randomGenre(contentRow.get(0));
-                                genreTags.add(randomGenre);
-                                genreTags.addAll(l1);
-                                contentRow.add(randomGenre);
-                            }
+            }
+        }
 
-                            if (itr == country){
-                                contentCountry.addAll(l1);
-                            }
+        for (int index = 0; index < dateHelper.size(); index++){
+            int contentID = Integer.parseInt(dateHelper.get(index).get(0));
 
-                            if (itr == dateAdded){
-                                String date = l1.toString();
-                                date = getDateFormatted(date);
-                                contentDate.add(date);
-                            }
+            for (int j = 1; j < dateHelper.get(index).size(); j++) {
+                String releaseDate = dateHelper.get(index).get(j);
+                String releaseDateTrimmed = releaseDate.trim();
+                int releaseID = caches.dates.resolve(releaseDateTrimmed, conn);
 
+                if (releaseID != -1){
+                    insertContent_Release(contentID, releaseID, writers);
+                }
 
-                        } else {
-
-                            /*
-                            This is the case when the value is not wrapped in Quotation marks.
-                            Based on the current index we will insert the value into it's respective List.
-                             */
-
-                            itr++;
-                            switch (itr) {
-                                // ContentID column
-                                case contentID:
-                                    /*
-                                     What's Done:
-                                     Remove the 's' from the ID values & Add the ID to all lists
-                                     We make sure the ID is the 0th Element for each list's row for clarity.
-                                     */
-
-                                    value = truncateID(value);
-                                    contentRow.add(value);
-                                    contentActors.add(value);
-                                    contentTags.add(value);
-                                    contentCountry.add(value);
-                                    contentDate.add(value);
-                                    contentDirectors.add(value);
-                                    break;
-                                // Content_Format column
-                                case contentFormat:
-                                    /*
-                                     What's Done:
-                                     Pretty Simple, Get the 2nd value in the line & Add it to ContentRow
-                                     */
-
-                                    int content_formatID =
-                                            getContentFormatID_or_INSERT(content_format_map, value, conn);
-                                    contentRow.add(String.valueOf(content_formatID));
-
-                                    break;
-                                case title:
-                                    // Add the title of show/movie only to the content row.
-                                    contentRow.add(value);
-                                    break;
-                                case director:
-                                    // Add the director of show/movie only to the content row.
-                                    int directorID = getDirectorID_or_INSERT(director_map, value, conn);
-                                    contentRow.add(String.valueOf(directorID));
-                                    break;
-                                case cast:
-                                    // This case is for Content with only 1 ACTOR.
-                                    // Will add each actor to Actor Table & contentActors (LIST)
-                                    contentActors.add(value);
-
-
-                                    break;
-                                case country:
-                                    contentCountry.add(value);
-                                    break;
-                                case dateAdded:
-                                    break;
-                                case releaseYear:
-                                    contentRow.add(value);
-                                    break;
-                                case rating:
-                                    /*
-                                    There are certain cases where the duration is in the place where
-                                    the rating should be.
-                                    So in this case I add my custom Rating to the content,
-                                     then  duration to the proper column
-                                     */
-
-                                    // Since both values are essential for Content I add both.
-                                    if (value.endsWith(" min")) {
-                                        int ratingID = 1;
-                                        contentRow.add(String.valueOf(ratingID));
-
-
-
-                                        contentRow.add(value);
-                                        itr = duration;
-                                    } else {
-                                        int ratingID = getRatingID_or_INSERT(rating_map, value, conn);
-                                        contentRow.add(String.valueOf(ratingID));
-                                    }
-                                    break;
-                                case duration:
-                                    // As listed above duration is essential for content.
-                                    contentRow.add(value);
-                                    break;
-                                case genre:
-                                    /*
-                                    This is where "Tags" go that describe Content.
-                                    I have it labeled Genre, so I know to assign a random genre to the content.
-                                    Then, I add the actual Tag values to contentTags.
-                                     */
-
-                                    contentTags.add(value);
-
-                                    String randomGenre = randomGenre(contentRow.get(0));
-                                    genreTags.add(randomGenre);
-                                    genreTags.add(value);
-                                    contentRow.add(randomGenre);
-                                    break;
-                                case contentDescription:
-                                    /*
-                                    This is another special case Handle where the Description is incorrect.
-                                    So If I run into this line I just skip it.
-                                     */
-                                    if (value.equals("Movies")) {
-                                        contentRow.clear();
-                                    } else {
-                                        // Otherwise add the description since it's essential to the Content
-                                        contentRow.add(value);
-                                    }
-                                    break;
-                                default:
+            }
+        }
 
-                            }
-                        }
+        for (int index = 0; index < contentTagsHelper.size(); index++){
+            int contentID = Integer.parseInt(contentTagsHelper.get(index).get(0));
 
+            for (int j = 1; j < contentTagsHelper.get(index).size(); j++) {
+                String tagName = contentTagsHelper.get(index).get(j);
+                String tagNameTrimmed = tagName.trim();
+                int tagID = caches.tags.resolve(tagNameTrimmed, conn);
 
-                    }
+                if (tagID != -1){
+                    insertContentTags(contentID, tagID, writers);
+                }
 
+            }
+        }
 
+        for (int index = 0; index < genreTagsHelper.size(); index++){
+            int genreID = Integer.parseInt(genreTagsHelper.get(index).get(0));
 
+            for (int j = 1; j < genreTagsHelper.get(index).size(); j++) {
+                String tagName = genreTagsHelper.get(index).get(j);
+                String tagNameTrimmed = tagName.trim();
+                int tagID = caches.tags.resolve(tagNameTrimmed, conn);
 
+                if (tagID != -1){
+                    insertGenreTags(genreID, tagID, writers);
+                }
 
+            }
+        }
 
-                    // IF Content contains all key 9 attributes then proceed.
-                    // Add all of our cleaned values to a List<List>.
-                    if (contentRow.size() == 9) {
+        for (int index = 0; index < contentDirectorsHelper.size(); index++){
+            int contentID = Integer.parseInt(contentDirectorsHelper.get(index).get(0));
 
-                        // ADD the content (id, title, director etc.)
-                        contentHelper.add(new ArrayList<>(contentRow));
+            for (int j = 1; j < contentDirectorsHelper.get(index).size(); j++) {
+                String directorName = contentDirectorsHelper.get(index).get(j);
+                String directorNameTrimmed = directorName.trim();
+                int directorID = caches.directors.resolve(directorNameTrimmed, conn);
 
-                        // There's a weird case where one of the values for actor is the description.
-                        // So if an actor's name is greater than 100 skip it.
-                        if (!contentActors.contains("NULL") && contentActors.get(1).length() < 100) {
-                            actorHelper.add(new ArrayList<>(contentActors));
-                        }
+                if (directorID != -1){
+                    insertContent_Directors(contentID, directorID, writers);
+                }
 
-                        if (!contentTags.contains("NULL")){
-                            contentTagsHelper.add(new ArrayList<>(contentTags));
-                        }
+            }
+        }
 
-                        if (!genreTags.contains("NULL")){
-                            genreTagsHelper.add(new ArrayList<>(genreTags));
-                        }
+        return contentRows + contentHelper.size();
+    }
 
-                        if (!contentCountry.contains("NULL")){
-                            countryHelper.add(new ArrayList<>(contentCountry));
-                        }
+    public static void main(String[] args) {
+        LoaderOptions options = LoaderOptions.parse(args);
+
+        // Counters of the whole run, readable over JMX while it runs & printed once it ends. (See LoaderMetrics)
+        LoaderMetrics.GLOBAL.register();
+        LoaderMetrics.GLOBAL.start();
+        try {
+            load(options);
+        } finally {
+            LoaderMetrics.GLOBAL.printSummary();
+        }
+    }
 
-                        if (!contentDate.contains("NULL")){
-                            dateHelper.add(new ArrayList<>(contentDate));
-                        }
+    // Run the loader the options ask for.
+    public static void load(LoaderOptions options) {
+        if (options.profileJdbc) {
+            // Every Connection below is wrapped & the statements are ranked at exit. (See JdbcProfiler)
+            JdbcProfiler.enable();
+        }
 
-                        if (!contentDirectors.contains("NULL")){
-                            contentDirectorsHelper.add(new ArrayList<>(contentDirectors));
-                        }
-                    }
+        // HashMaps of every (name, ID) per table. (See DimensionCaches)
+        DimensionCaches caches = new DimensionCaches();
 
-                    // EMPTY all List<> since they are only useful for this current line.
-                    contentRow.clear();
-                    contentActors.clear();
-                    contentTags.clear();
-                    genreTags.clear();
-                    contentCountry.clear();
-                    contentDate.clear();
-                    contentDirectors.clear();
+        if (options.bulkLoadDirectory != null) {
+            // Full reload through per-table staging files & LOAD DATA. (See BulkLoader)
+            new BulkLoader(options, caches).run();
+            return;
+        }
 
-                }
+        if (options.pipeline) {
+            // Parse, resolve & write on separate threads connected by bounded queues. (See IngestPipeline)
+            new IngestPipeline(options, caches).run();
+            return;
+        }
 
-                // Iterate through the entire List<List> of Content rows.
-                for (int index = 0; index < contentHelper.size(); index++){
+        if (options.virtualThreads) {
+            // 1 virtual thread per micro-batch, Connections from a bounded pool. (See VirtualThreadLoader)
+            new VirtualThreadLoader(options, caches).run();
+            return;
+        }
 
-                    // Check if content is empty or not
-                    if (contentHelper.get(index).size() > 0) {
-                        // Insert Content into DB by using the List<String> at the current index.
-                        insertContent(contentHelper.get(index), conn);
+        CatalogRecord record = new CatalogRecord();
+        LoadWindow window = new LoadWindow();
 
-                        // THEN INSERT into Content_Availability, with an availability of 1.
-                        //      -> This makes the status of the content 'Available'.
-                        String contentID = contentHelper.get(index).get(0);
-                        insertContent_Availability(contentID, 1, conn);
 
-                        // I just simply want the tester user to watch half the content twice.
-                        // Again this is for 11. testing.
-                        if (index > 4000) {
-                            insertWatch_History(contentID, 5, conn);
-                            insertWatch_History(contentID, 5, conn);
-                        }
-                    }
-                }
+        // Every statement the get*ID_or_INSERT & insert* functions use is prepared once per run (See StatementRegistry),
+        // & closed by StatementRegistry.release in the finally below.
+        try(Connection conn = JdbcProfiler.wrap(DriverManager.getConnection(options.dbUrl, options.user, options.password));
+            AssociativeWriters writers = new AssociativeWriters(conn, options.batchSize, options.memoryBudget > 0)){
+            System.out.println("Connected");
+            try {
+                // Fill the HashMaps with what's already in the DB, so known names never cost a SELECT.
+                caches.preload(conn);
 
                 /*
-                EVERYTHING UNDER IS FOR ASSOCIATIVE ENTITIES.
-                2 FOR LOOPS
-                    The Outer Loop to iterate through the List<List>
-                    The inner loop to iterate through each value in the inner list.
-
-                GET the content ID which is always the 0th element.
-                THEN iterate through the row of List<String>
-                    -> I.E. Iterate through the different Actor Names
-                    -> THEN run our checker if the name exists in the DB already or not.
-                            -> This returns either the newly inserted ID or the id if the name exists.
-                AFTER we insert the content and the other value for all associative entites.
+                --commit-every=N turns autocommit off & commits every N records.
+                    -> After each commit the checkpoint file gets the byte offset & show_id of the last committed record.
+                    -> If it's there when we start, the previous run died, so skip straight past that record.
                  */
-
-                for (int index = 0; index < actorHelper.size(); index++){
-                    String contentID = actorHelper.get(index).get(0).trim();
-
-                    for (int j = 1; j < actorHelper.get(index).size(); j++) {
-                        String actorName = actorHelper.get(index).get(j);
-                        String actorNameTrimmed = actorName.trim();
-                        int actorID = getActorID_or_INSERT(actor_map, actorNameTrimmed, conn);
-
-                        if (actorID != -1){
-                            insertContentActors(contentID, actorID, conn);
-                        }
-
+                LoadCheckpoint checkpoint = null;
+                long contentRows = 0;
+                // Write failures before the current window. (See commitWindow)
+                long failures = LoaderMetrics.GLOBAL.getWriteFailures();
+                if (options.commitEvery > 0) {
+                    conn.setAutoCommit(false);
+                    checkpoint = LoadCheckpoint.open(options.checkpointFile);
+                    contentRows = checkpoint.getContentRows();
+
+                    if (checkpoint.isResuming()) {
+                        System.out.println("Resuming after " + checkpoint.getShowID() + " (byte " + checkpoint.getByteOffset() + ")");
                     }
                 }
 
-                for (int index = 0; index < contentTagsHelper.size(); index++){
-                    String contentID = contentTagsHelper.get(index).get(0).trim();
-
-                    for (int j = 1; j < contentTagsHelper.get(index).size(); j++) {
-                        String tagName = contentTagsHelper.get(index).get(j);
-                        String tagNameTrimmed = tagName.trim();
-                        int tagID = getTagID_or_INSERT(tag_map, tagNameTrimmed, conn);
-
-                        if (tagID != -1){
-                            insertContentTags(contentID, tagID, conn);
-                        }
-
+                // --delta: fingerprints of every record of the last run. (See RowFingerprints)
+                RowFingerprints fingerprints = null;
+                if (options.deltaFile != null) {
+                    fingerprints = RowFingerprints.open(options.deltaFile);
+                    if (checkpoint != null && checkpoint.isResuming()) {
+                        fingerprints.keepUnseen();
                     }
                 }
 
+                try(CsvRecordSource reader = openRecordSource(options, checkpoint)){
+                    String[] values = null;
 
-
-                for (int index = 0; index < countryHelper.size(); index++){
-                    String contentID = countryHelper.get(index).get(0).trim();
-
-                    for (int j = 1; j < countryHelper.get(index).size(); j++) {
-                        String countryName = countryHelper.get(index).get(j);
-                        String countryNameTrimmed = countryName.trim();
-                        int countryID = getCountryID_or_INSERT(country_map, countryNameTrimmed, conn);
-
-                        if (countryID != -1){
-                            insertContent_Country(contentID, countryID, conn);
-                        }
-
+                    // Skip the header (show_id, type, title ...), a resumed reader already starts past it.
+                    if (checkpoint == null || !checkpoint.isResuming()) {
+                        reader.next();
                     }
-                }
 
-                for (int index = 0; index < dateHelper.size(); index++){
-                    String contentID = dateHelper.get(index).get(0).trim();
+                    // --byte-reader: the columns are read straight from the bytes, no String[] per record.
+                    //      -> Not with --delta, its fingerprints are the hash of the String[].
+                    ByteCsvReader bytes = reader instanceof ByteCsvReader && fingerprints == null ? (ByteCsvReader) reader : null;
 
-                    for (int j = 1; j < dateHelper.get(index).size(); j++) {
-                        String releaseDate = dateHelper.get(index).get(j);
-                        String releaseDateTrimmed = releaseDate.trim();
-                        String version = "1";
-                        int releaseID = getRelease_or_INSERT(date_map, releaseDateTrimmed, version, conn);
+                    while(bytes != null ? bytes.nextRecord() : (values = reader.next()) != null) {
 
-                        if (releaseID != -1){
-                            insertContent_Release(contentID, releaseID, conn);
-                        }
+                        // In delta mode a record that is the same as last run is skipped completely.
+                        if (bytes != null || fingerprints == null || fingerprints.isChanged(values)) {
 
-                    }
-                }
+                            if (bytes != null) {
+                                normalizeRecord(bytes, record);
+                            } else {
+                                normalizeRecord(values, record);
+                            }
 
-                for (int index = 0; index < contentTagsHelper.size(); index++){
-                    String contentID = contentTagsHelper.get(index).get(0).trim();
+                            // IF Content contains all key 9 attributes then proceed.
+                            // Add all of our cleaned values to a List<List>.
+                            if (record.isComplete()) {
 
-                    for (int j = 1; j < contentTagsHelper.get(index).size(); j++) {
-                        String tagName = contentTagsHelper.get(index).get(j);
-                        String tagNameTrimmed = tagName.trim();
-                        int tagID = getTagID_or_INSERT(tag_map, tagNameTrimmed, conn);
+                                resolveContent(record, caches, conn);
+                                window.add(record);
+                            }
 
-                        if (tagID != -1){
-                            insertContentTags(contentID, tagID, conn);
+                            // EMPTY all List<> since they are only useful for this current line.
+                            record.clear();
                         }
-
-                    }
-                }
-
-                for (int index = 0; index < genreTagsHelper.size(); index++){
-                    String genreID = genreTagsHelper.get(index).get(0).trim();
-
-                    for (int j = 1; j < genreTagsHelper.get(index).size(); j++) {
-                        String tagName = genreTagsHelper.get(index).get(j);
-                        String tagNameTrimmed = tagName.trim();
-                        int tagID = getTagID_or_INSERT(tag_map, tagNameTrimmed, conn);
-
-                        if (tagID != -1){
-                            insertGenreTags(genreID, tagID, conn);
+                        window.countRecord();
+
+                        /*
+                        Write the window once it holds N records (--commit-every) or its rows reach the memory budget (--memory-mb).
+                            -> With a checkpoint, commit & remember where it ended.
+                            -> EMPTY the window, so the next records reuse the same memory.
+                         */
+                        boolean windowFull = (options.commitEvery > 0 && window.getRecords() >= options.commitEvery) ||
+                                (options.memoryBudget > 0 && window.getEstimatedBytes() >= options.memoryBudget);
+
+                        if (windowFull) {
+                            if (checkpoint != null) {
+                                contentRows = commitWindow(window, contentRows, failures, caches, writers, options, conn);
+                                String showID = bytes != null ? bytes.getString(contentID) : values[contentID];
+                                checkpoint.save(getByteOffset(reader), showID, contentRows);
+                                failures = LoaderMetrics.GLOBAL.getWriteFailures();
+                            } else {
+                                contentRows = writeWindow(window, contentRows, caches, writers, options, conn);
+                            }
+                            window.clear();
                         }
-
                     }
-                }
-
-                for (int index = 0; index < contentDirectorsHelper.size(); index++){
-                    String contentID = contentDirectorsHelper.get(index).get(0).trim();
-
-                    for (int j = 1; j < contentDirectorsHelper.get(index).size(); j++) {
-                        String directorName = contentDirectorsHelper.get(index).get(j);
-                        String directorNameTrimmed = directorName.trim();
-                        int directorID = getDirectorID_or_INSERT(director_map, directorNameTrimmed, conn);
-
-                        if (directorID != -1){
-                            insertContent_Directors(contentID, directorID, conn);
-                        }
 
+                    if (checkpoint != null) {
+                        commitWindow(window, contentRows, failures, caches, writers, options, conn);
+                        // The whole file made it in, the next run starts from the top again.
+                        checkpoint.delete();
+                    } else {
+                        writeWindow(window, contentRows, caches, writers, options, conn);
                     }
-                }
 
+                    // Only remember the fingerprints once everything they stand for is in the DB.
+                    if (fingerprints != null) {
+                        writers.flush();
+                        fingerprints.report();
+                        fingerprints.save();
+                    }
 
-            }catch (IOException e){
-                e.printStackTrace();
+                }
+            } finally {
+                // The statements of the StatementRegistry, before the Connection closes.
+                StatementRegistry.release(conn);
             }
-
-
-        } catch (SQLException e) {
+        } catch (SQLException | IOException e) {
             e.printStackTrace();
         }
     }
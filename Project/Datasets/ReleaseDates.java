@@ -0,0 +1,229 @@
+/*
+File: ReleaseDates.java
+Description: Reads the date_added values of the CSV ("September 25, 2021") straight from their characters.
+    -> The date comes back as an epoch day (days since 1970-01-01) in an int, nothing is allocated.
+    -> isoDate gives the "2021-09-25" String the date_map is keyed by (1 shared String per date).
+    -> sqlDate gives the java.sql.Date that's bound with setDate for the Release table.
+    -> Any CharSequence works, I.E. a String or the bytes of a CSV field. (See ByteCsvReader.getAscii)
+"2021-09-25" (what MySQL gives back) is read as well.
+
+NormalizeBench.parseReleaseDate checks that parsing doesn't allocate (gc.alloc.rate.norm with -prof gc).
+
+Collaborators: Jaylin Jack
+ */
+import java.time.LocalDate;
+
+public class ReleaseDates {
+
+    // Returned for anything that isn't a date.
+    public static final int INVALID = Integer.MIN_VALUE;
+
+    private static final String[] MONTHS = {
+            "January", "February", "March", "April", "May", "June",
+            "July", "August", "September", "October", "November", "December"
+    };
+
+    // isoDate keeps the String of every date between these years, indexed by epoch day.
+    private static final int FIRST_CACHED_DAY = epochDay(1900, 1, 1);
+    private static final int LAST_CACHED_DAY = epochDay(2100, 12, 31);
+    private static final String[] ISO_DATES = new String[LAST_CACHED_DAY - FIRST_CACHED_DAY + 1];
+
+    public static int parse(CharSequence text) {
+        return parse(text, 0, text.length());
+    }
+
+    /*
+        Epoch day of text[start, end), or INVALID.
+            -> Leading & trailing spaces are skipped.
+            -> "Month D, YYYY" or "YYYY-MM-DD".
+     */
+    public static int parse(CharSequence text, int start, int end) {
+        while (start < end && text.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && text.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        if (start == end) {
+            return INVALID;
+        }
+
+        if (isDigit(text.charAt(start))) {
+            return parseIso(text, start, end);
+        }
+
+        // 1. The month, up to the first space.
+        int space = start;
+        while (space < end && text.charAt(space) != ' ') {
+            space++;
+        }
+        int month = month(text, start, space);
+        if (month == 0) {
+            return INVALID;
+        }
+
+        // 2. The day, up to the comma.
+        int i = space;
+        while (i < end && text.charAt(i) == ' ') {
+            i++;
+        }
+        int day = 0;
+        int digits = 0;
+        while (i < end && isDigit(text.charAt(i))) {
+            day = day * 10 + (text.charAt(i++) - '0');
+            digits++;
+        }
+        if (digits == 0 || digits > 2 || i == end || text.charAt(i) != ',') {
+            return INVALID;
+        }
+        i++;
+
+        // 3. The year, the rest of the value.
+        while (i < end && text.charAt(i) == ' ') {
+            i++;
+        }
+        if (end - i != 4) {
+            return INVALID;
+        }
+        int year = number(text, i, end);
+
+        return checkedEpochDay(year, month, day);
+    }
+
+    // "YYYY-MM-DD"
+    private static int parseIso(CharSequence text, int start, int end) {
+        if (end - start != 10 || text.charAt(start + 4) != '-' || text.charAt(start + 7) != '-') {
+            return INVALID;
+        }
+        int year = number(text, start, start + 4);
+        int month = number(text, start + 5, start + 7);
+        int day = number(text, start + 8, start + 10);
+        if (year < 0 || month < 0 || day < 0) {
+            return INVALID;
+        }
+        return checkedEpochDay(year, month, day);
+    }
+
+    // The month number (1 - 12) of a full English month name, 0 if it isn't one.
+    private static int month(CharSequence text, int start, int end) {
+        int length = end - start;
+        if (length < 3) {
+            return 0;
+        }
+
+        // The first 3 letters are enough to tell the months apart.
+        int month;
+        char second = text.charAt(start + 1);
+        char third = text.charAt(start + 2);
+        switch (text.charAt(start)) {
+            case 'J':
+                month = second == 'a' ? 1 : third == 'n' ? 6 : 7;
+                break;
+            case 'F':
+                month = 2;
+                break;
+            case 'M':
+                month = third == 'r' ? 3 : 5;
+                break;
+            case 'A':
+                month = second == 'p' ? 4 : 8;
+                break;
+            case 'S':
+                month = 9;
+                break;
+            case 'O':
+                month = 10;
+                break;
+            case 'N':
+                month = 11;
+                break;
+            case 'D':
+                month = 12;
+                break;
+            default:
+                return 0;
+        }
+
+        String name = MONTHS[month - 1];
+        if (name.length() != length) {
+            return 0;
+        }
+        for (int i = 0; i < length; i++) {
+            if (name.charAt(i) != text.charAt(start + i)) {
+                return 0;
+            }
+        }
+        return month;
+    }
+
+    // Digits of text[start, end) as a number, -1 if one of them isn't a digit.
+    private static int number(CharSequence text, int start, int end) {
+        int value = 0;
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (!isDigit(c)) {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static int checkedEpochDay(int year, int month, int day) {
+        if (year < 0 || month < 1 || month > 12 || day < 1 || day > daysInMonth(year, month)) {
+            return INVALID;
+        }
+        return epochDay(year, month, day);
+    }
+
+    private static int daysInMonth(int year, int month) {
+        switch (month) {
+            case 2:
+                boolean leap = (year % 4 == 0 && year % 100 != 0) || year % 400 == 0;
+                return leap ? 29 : 28;
+            case 4:
+            case 6:
+            case 9:
+            case 11:
+                return 30;
+            default:
+                return 31;
+        }
+    }
+
+    /*
+        Days since 1970-01-01, same as LocalDate.of(year, month, day).toEpochDay() without creating the LocalDate.
+        Years are counted from March, so the leap day is the last day of the year.
+     */
+    public static int epochDay(int year, int month, int day) {
+        int y = month <= 2 ? year - 1 : year;
+        int era = (y >= 0 ? y : y - 399) / 400;
+        int yearOfEra = y - era * 400;
+        int dayOfYear = (153 * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+        int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097 + dayOfEra - 719468;
+    }
+
+    // "YYYY-MM-DD" of an epoch day, the same String every time for the same day.
+    public static String isoDate(int epochDay) {
+        if (epochDay < FIRST_CACHED_DAY || epochDay > LAST_CACHED_DAY) {
+            return LocalDate.ofEpochDay(epochDay).toString();
+        }
+
+        String iso = ISO_DATES[epochDay - FIRST_CACHED_DAY];
+        if (iso == null) {
+            // Strings are immutable, so another thread seeing it early (or making its own) is harmless.
+            iso = ReadData.DICTIONARY.intern(LocalDate.ofEpochDay(epochDay).toString());
+            ISO_DATES[epochDay - FIRST_CACHED_DAY] = iso;
+        }
+        return iso;
+    }
+
+    public static java.sql.Date sqlDate(int epochDay) {
+        return java.sql.Date.valueOf(LocalDate.ofEpochDay(epochDay));
+    }
+}
@@ -0,0 +1,215 @@
+/*
+File: RowFingerprints.java
+Description: Delta mode for ReadData (--delta=<file>).
+Keeps a 64 bit hash of every CSV record, keyed by its show_id, in a small binary file.
+On the next run only records that are new or whose hash changed are loaded,
+and the show_ids that disappeared from the CSV are reported.
+
+File layout: MAGIC, number of rows, then (show_id without the 's', hash) per row sorted by show_id.
+
+A changed record is loaded like a new one: the Content row is updated in place, but its associations are only ADDED.
+    -> I.E. an actor removed from a record stays in ContentActors, delta mode never DELETEs.
+       A full reload (--bulk-load on a fresh DB) is the way to drop those.
+
+Collaborators: Jaylin Jack
+ */
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+
+public class RowFingerprints {
+
+    private static final int MAGIC = 0x52464631;
+
+    private final Path file;
+
+    // The previous run, sorted by show_id so a row is found with a binary search.
+    private int[] previousIDs = new int[0];
+    private long[] previousHashes = new long[0];
+    private boolean[] seen = new boolean[0];
+
+    // This run.
+    private int[] ids = new int[1024];
+    private long[] hashes = new long[1024];
+    private int size = 0;
+
+    // When resuming from a checkpoint the rows before it aren't read again, so they can't count as vanished.
+    private boolean keepUnseen = false;
+
+    // Write failures before this run started, save() is skipped if the run added any. (See LoaderMetrics.writeFailed)
+    private final long failuresAtOpen = LoaderMetrics.GLOBAL.getWriteFailures();
+
+    private long newRows = 0;
+    private long changedRows = 0;
+    private long unchangedRows = 0;
+
+    private RowFingerprints(Path file) {
+        this.file = file;
+    }
+
+    // Read the fingerprints of the previous run, if there was one.
+    public static RowFingerprints open(String path) throws IOException {
+        RowFingerprints fingerprints = new RowFingerprints(Paths.get(path));
+
+        if (Files.exists(fingerprints.file)) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(fingerprints.file)))) {
+                if (in.readInt() != MAGIC) {
+                    throw new IOException(path + " is not a fingerprint file");
+                }
+                int count = in.readInt();
+                fingerprints.previousIDs = new int[count];
+                fingerprints.previousHashes = new long[count];
+                fingerprints.seen = new boolean[count];
+                for (int i = 0; i < count; i++) {
+                    fingerprints.previousIDs[i] = in.readInt();
+                    fingerprints.previousHashes[i] = in.readLong();
+                }
+            }
+            System.out.println("Loaded " + fingerprints.previousIDs.length + " row fingerprints from " + path);
+        }
+        return fingerprints;
+    }
+
+    public void keepUnseen() {
+        keepUnseen = true;
+    }
+
+    /*
+        Record the fingerprint of a raw CSV record & return whether it has to be loaded.
+            -> true for a new show_id or a record that changed since the previous run.
+            -> A show_id that isn't 's' + a number can't be tracked, so it is always loaded.
+     */
+    public boolean isChanged(String[] values) {
+        int id;
+        try {
+            id = Integer.parseInt(ReadData.truncateID(values[ReadData.contentID]));
+        } catch (RuntimeException e) {
+            return true;
+        }
+
+        long hash = hash(values);
+        append(id, hash);
+
+        int previous = Arrays.binarySearch(previousIDs, id);
+        if (previous < 0) {
+            newRows++;
+            return true;
+        }
+
+        seen[previous] = true;
+        if (previousHashes[previous] != hash) {
+            changedRows++;
+            return true;
+        }
+        unchangedRows++;
+        return false;
+    }
+
+    /*
+        FNV-1a over every character of every value, with a separator between values
+        so ("ab", "c") and ("a", "bc") don't hash the same. Mixed at the end like LongHashSet does.
+     */
+    static long hash(String[] values) {
+        long hash = 0xcbf29ce484222325L;
+        for (String value : values) {
+            for (int i = 0; i < value.length(); i++) {
+                hash ^= value.charAt(i);
+                hash *= 0x100000001b3L;
+            }
+            hash ^= 0xFFFF;
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    private void append(int id, long hash) {
+        if (size == ids.length) {
+            ids = Arrays.copyOf(ids, size * 2);
+            hashes = Arrays.copyOf(hashes, size * 2);
+        }
+        ids[size] = id;
+        hashes[size] = hash;
+        size++;
+    }
+
+    // show_ids of the previous run that weren't in this CSV.
+    public List<String> vanished() {
+        List<String> vanished = new ArrayList<>();
+        if (!keepUnseen) {
+            for (int i = 0; i < previousIDs.length; i++) {
+                if (!seen[i]) {
+                    vanished.add("s" + previousIDs[i]);
+                }
+            }
+        }
+        return vanished;
+    }
+
+    // Print what changed. Called once the load is done.
+    public void report() {
+        List<String> vanished = vanished();
+        System.out.println("Delta: " + newRows + " new, " + changedRows + " changed, " + unchangedRows +
+                " unchanged, " + vanished.size() + " vanished rows");
+        if (!vanished.isEmpty()) {
+            System.out.println("Vanished show_ids: " + String.join(", ", vanished));
+        }
+    }
+
+    /*
+        Write this run's fingerprints for the next run. Only called after a load that finished,
+        otherwise rows that never made it to the DB would look unchanged next time.
+            -> For the same reason nothing is saved when any write of the run failed,
+               the previous file stays & the next run loads every new or changed record again.
+     */
+    public void save() throws IOException {
+        long failed = LoaderMetrics.GLOBAL.getWriteFailures() - failuresAtOpen;
+        if (failed > 0) {
+            System.out.println("Row fingerprints not saved, " + failed + " writes failed during this run");
+            return;
+        }
+
+        // Sort (show_id, hash) together by packing them, a repeated show_id keeps its first record.
+        long[] order = new long[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = ((long) ids[i] << 32) | i;
+        }
+        Arrays.sort(order);
+
+        List<long[]> rows = new ArrayList<>(size + previousIDs.length);
+        int last = -1;
+        boolean any = false;
+        for (long packed : order) {
+            int id = (int) (packed >> 32);
+            if (any && id == last) {
+                continue;
+            }
+            rows.add(new long[] {id, hashes[(int) packed]});
+            last = id;
+            any = true;
+        }
+
+        if (keepUnseen) {
+            for (int i = 0; i < previousIDs.length; i++) {
+                if (!seen[i]) {
+                    rows.add(new long[] {previousIDs[i], previousHashes[i]});
+                }
+            }
+            rows.sort(Comparator.comparingLong(row -> row[0]));
+        }
+
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(rows.size());
+            for (long[] row : rows) {
+                out.writeInt((int) row[0]);
+                out.writeLong(row[1]);
+            }
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        System.out.println("Saved " + rows.size() + " row fingerprints to " + file);
+    }
+}
@@ -0,0 +1,131 @@
+/*
+File: StatementRegistry.java
+Description: Every PreparedStatement the loader uses on 1 Connection, prepared once & reused for the whole run.
+    -> StatementRegistry.of(conn).prepare(sql) gives back the same statement every time it's asked for the same SQL.
+    -> Closing the registry closes all of its statements & prints how often each one was reused.
+With useServerPrepStmts=true (see LoaderOptions) MySQL parses each statement once too, not only the driver.
+
+The statements are owned by the registry, so callers don't close them.
+Like the Connection itself, a registry is used by 1 thread at a time (no locks, so a virtual thread never gets pinned).
+
+Collaborators: Jaylin Jack
+ */
+import java.sql.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+public class StatementRegistry implements AutoCloseable {
+
+    // 1 registry per open Connection.
+    private static final Map<Connection, StatementRegistry> REGISTRIES = new ConcurrentHashMap<>();
+
+    private final Connection conn;
+
+    // Keyed by the SQL, statements returning generated keys are kept apart from the rest.
+    private final Map<String, Entry> statements = new HashMap<>();
+    private final Map<String, Entry> keyStatements = new HashMap<>();
+
+    private long hits = 0;
+    private long prepares = 0;
+
+    private static class Entry {
+        final PreparedStatement statement;
+        long uses = 0;
+
+        Entry(PreparedStatement statement) {
+            this.statement = statement;
+        }
+    }
+
+    private StatementRegistry(Connection conn) {
+        this.conn = conn;
+    }
+
+    // The registry of a Connection, created the first time it's asked for.
+    public static StatementRegistry of(Connection conn) {
+        return REGISTRIES.computeIfAbsent(conn, StatementRegistry::new);
+    }
+
+    public PreparedStatement prepare(String sql) throws SQLException {
+        return prepare(statements, sql, Statement.NO_GENERATED_KEYS);
+    }
+
+    // I.E. Statement.RETURN_GENERATED_KEYS for the INSERTs that hand back the new ID.
+    public PreparedStatement prepare(String sql, int autoGeneratedKeys) throws SQLException {
+        return prepare(autoGeneratedKeys == Statement.RETURN_GENERATED_KEYS ? keyStatements : statements, sql, autoGeneratedKeys);
+    }
+
+    private PreparedStatement prepare(Map<String, Entry> map, String sql, int autoGeneratedKeys) throws SQLException {
+        Entry entry = map.get(sql);
+        if (entry == null) {
+            entry = new Entry(conn.prepareStatement(sql, autoGeneratedKeys));
+            map.put(sql, entry);
+            prepares++;
+        } else {
+            hits++;
+        }
+        entry.uses++;
+        return entry.statement;
+    }
+
+    // Times a statement was handed out again instead of being prepared.
+    public long getHits() {
+        return hits;
+    }
+
+    public long getPrepares() {
+        return prepares;
+    }
+
+    // How many times each SQL was used.
+    public Map<String, Long> getUses() {
+        Map<String, Long> uses = new LinkedHashMap<>();
+        for (Map<String, Entry> map : Arrays.asList(statements, keyStatements)) {
+            for (Map.Entry<String, Entry> entry : map.entrySet()) {
+                uses.merge(entry.getKey(), entry.getValue().uses, Long::sum);
+            }
+        }
+        return uses;
+    }
+
+    // Close every statement (the Connection stays open) & print the hit counts.
+    @Override
+    public void close() throws SQLException {
+        REGISTRIES.remove(conn, this);
+
+        if (prepares > 0) {
+            System.out.println("Statements: " + prepares + " prepared, " + hits + " reused");
+            for (Map.Entry<String, Long> use : getUses().entrySet()) {
+                String sql = use.getKey();
+                System.out.println("    " + use.getValue() + "x " + (sql.length() > 80 ? sql.substring(0, 80) + "..." : sql));
+            }
+        }
+
+        SQLException failure = null;
+        for (Map<String, Entry> map : Arrays.asList(statements, keyStatements)) {
+            for (Entry entry : map.values()) {
+                try {
+                    entry.statement.close();
+                } catch (SQLException e) {
+                    if (failure == null) {
+                        failure = e;
+                    } else {
+                        failure.setNextException(e);
+                    }
+                }
+            }
+            map.clear();
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    // Close the registry of a Connection, if it has one. Called right before the Connection is closed.
+    public static void release(Connection conn) throws SQLException {
+        StatementRegistry registry = REGISTRIES.get(conn);
+        if (registry != null) {
+            registry.close();
+        }
+    }
+}
@@ -0,0 +1,246 @@
+/*
+File: StringDictionary.java
+Description: Gives every distinct value ReadData parses (actor names, countries, tags, ratings, formats ...)
+1 int code & 1 shared String.
+    -> A value is looked up straight from the characters of the CSV field, so a name that was seen before
+       doesn't cost a new String (no substring).
+    -> Every list & HashMap then holds the same String instance for the same name,
+       so the hash is only computed once & equals() is an == check.
+    -> The UTF-8 bytes of a field (ByteCsvReader) can be looked up as well, only a new value becomes a String.
+    -> Codes start at 0 and go up by 1 per new value, so they can index an array.
+       normalizeRecord keeps the codes of the names in the CatalogRecord & DimensionResolver finds the ID
+       of a code in an int[] (See DimensionResolver.resolve(int, ...)), the String is only needed for SQL.
+
+Every normalizer thread of the pipeline interns at once, so a name that is already in the table is found without a lock:
+    1. The table is an open addressing Entry[] (value + code) that is only ever added to. A reader probes whatever
+       table is current, an Entry it finds is complete (its fields are final) & never moves out of that table.
+    2. Only a value that isn't found takes the lock: probe again (another thread may have just added it), then add it.
+       Growing builds a new table & swaps it in, a reader on the old one just ends up in 2.
+The lock is a ReentrantLock, not synchronized, so a virtual thread waiting on it isn't pinned to its carrier.
+
+Collaborators: Jaylin Jack
+ */
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.locks.*;
+
+public class StringDictionary {
+
+    // 1 distinct value & its code.
+    private static final class Entry {
+        final String value;
+        final int code;
+
+        Entry(String value, int code) {
+            this.value = value;
+            this.code = code;
+        }
+    }
+
+    // 1. Open addressing table of the values (null = empty slot), always at most half full.
+    private volatile Entry[] table = new Entry[1024];
+
+    // The value of each code.
+    private volatile String[] values = new String[512];
+    private volatile int size = 0;
+
+    // 2.
+    private final ReentrantLock lock = new ReentrantLock();
+
+    // The code of text[start, end), a value that wasn't seen before gets the next code.
+    public int code(String text, int start, int end) {
+        return entry(text, start, end).code;
+    }
+
+    public int code(String text) {
+        return code(text, 0, text.length());
+    }
+
+    // The code of the UTF-8 bytes[start, end).
+    public int code(byte[] bytes, int start, int end) {
+        return entry(bytes, start, end).code;
+    }
+
+    // The shared String of text[start, end).
+    public String intern(String text, int start, int end) {
+        return entry(text, start, end).value;
+    }
+
+    public String intern(String text) {
+        return intern(text, 0, text.length());
+    }
+
+    // The shared String of the UTF-8 bytes[start, end).
+    public String intern(byte[] bytes, int start, int end) {
+        return entry(bytes, start, end).value;
+    }
+
+    // The value of a code this dictionary gave out.
+    public String value(int code) {
+        String[] known = values;
+        if (code < known.length && known[code] != null) {
+            return known[code];
+        }
+        // Added by another thread just now & not visible to this one yet, the lock makes it visible.
+        lock.lock();
+        try {
+            return values[code];
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private Entry entry(String text, int start, int end) {
+        // Same hash as String.hashCode(), so the String we create already agrees with it.
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + text.charAt(i);
+        }
+
+        // 1.
+        Entry[] entries = table;
+        int mask = entries.length - 1;
+        for (int slot = mix(hash) & mask; entries[slot] != null; slot = (slot + 1) & mask) {
+            Entry entry = entries[slot];
+            if (entry.value.hashCode() == hash && regionEquals(entry.value, text, start, end)) {
+                return entry;
+            }
+        }
+
+        // 2. New value (most likely).
+        lock.lock();
+        try {
+            Entry found = find(hash, text, start, end);
+            if (found != null) {
+                return found;
+            }
+            return add((start == 0 && end == text.length()) ? text : text.substring(start, end), hash);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /*
+        The UTF-8 bytes[start, end).
+            -> ASCII (almost every name) is hashed & compared byte by byte, the same hash as its String.
+            -> Anything else is decoded to a String first.
+     */
+    private Entry entry(byte[] bytes, int start, int end) {
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            byte b = bytes[i];
+            if (b < 0) {
+                String value = new String(bytes, start, end - start, StandardCharsets.UTF_8);
+                return entry(value, 0, value.length());
+            }
+            hash = 31 * hash + b;
+        }
+
+        // 1.
+        Entry[] entries = table;
+        int mask = entries.length - 1;
+        for (int slot = mix(hash) & mask; entries[slot] != null; slot = (slot + 1) & mask) {
+            Entry entry = entries[slot];
+            if (entry.value.hashCode() == hash && regionEquals(entry.value, bytes, start, end)) {
+                return entry;
+            }
+        }
+
+        // 2. New value, ASCII so every byte is 1 char.
+        String value = new String(bytes, start, end - start, StandardCharsets.ISO_8859_1);
+        lock.lock();
+        try {
+            Entry found = find(hash, value, 0, value.length());
+            if (found != null) {
+                return found;
+            }
+            return add(value, hash);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // The probe of 1. on the current table, with the lock held.
+    private Entry find(int hash, String text, int start, int end) {
+        Entry[] entries = table;
+        int mask = entries.length - 1;
+        for (int slot = mix(hash) & mask; entries[slot] != null; slot = (slot + 1) & mask) {
+            Entry entry = entries[slot];
+            if (entry.value.hashCode() == hash && regionEquals(entry.value, text, start, end)) {
+                return entry;
+            }
+        }
+        return null;
+    }
+
+    // Give a value find() didn't find the next code & put it into the current table, with the lock held.
+    private Entry add(String value, int hash) {
+        int code = size;
+        String[] known = values;
+        if (code == known.length) {
+            known = Arrays.copyOf(known, code * 2);
+        }
+        known[code] = value;
+        values = known;
+
+        Entry[] entries = table;
+        if ((code + 1) * 2 > entries.length) {
+            entries = grow(entries);
+        }
+        int mask = entries.length - 1;
+        int slot = mix(hash) & mask;
+        while (entries[slot] != null) {
+            slot = (slot + 1) & mask;
+        }
+        Entry entry = new Entry(value, code);
+        entries[slot] = entry;
+        size = code + 1;
+        return entry;
+    }
+
+    // A table twice as big with every entry of the old one, readers see it from now on.
+    private Entry[] grow(Entry[] entries) {
+        Entry[] bigger = new Entry[entries.length * 2];
+        int mask = bigger.length - 1;
+        for (Entry entry : entries) {
+            if (entry != null) {
+                int slot = mix(entry.value.hashCode()) & mask;
+                while (bigger[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                bigger[slot] = entry;
+            }
+        }
+        table = bigger;
+        return bigger;
+    }
+
+    private static boolean regionEquals(String value, String text, int start, int end) {
+        return value.length() == end - start && value.regionMatches(0, text, start, end - start);
+    }
+
+    // ASCII bytes only (See intern(byte[], ...))
+    private static boolean regionEquals(String value, byte[] bytes, int start, int end) {
+        if (value.length() != end - start) {
+            return false;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) != bytes[start + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Spread the String hash over the table (it's weak in the low bits for short names).
+    private static int mix(int hash) {
+        hash ^= hash >>> 16;
+        hash *= 0x85ebca6b;
+        hash ^= hash >>> 13;
+        return hash;
+    }
+}
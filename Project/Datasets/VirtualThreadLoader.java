@@ -0,0 +1,189 @@
+/*
+File: VirtualThreadLoader.java
+Description: Loads the CSV with 1 virtual thread per micro-batch of records (--virtual-threads).
+    1. The main thread reads the CSV & cuts it into batches of --task-batch records.
+    2. Each batch becomes a task on its own virtual thread: normalize, borrow a Connection,
+       resolve the names, INSERT the Content & associations, give the Connection back.
+    3. While a task waits on MySQL its virtual thread is parked, so many tasks can wait at once
+       without a platform thread each.
+
+The only knob is --pool-size (See ConnectionPool), it decides how many tasks talk to MySQL at the same time.
+At most 2x that many batches are in flight, so reading never runs far ahead of the DB.
+
+Virtual threads need Java 21. The executor is looked up by reflection, so the loader still compiles & runs
+on Java 17 & only --virtual-threads stops with an error there.
+Connector/J 8.x does its socket I/O inside synchronized blocks, a virtual thread waiting on MySQL there is pinned to
+its carrier (See ConnectionPool). Only the tasks holding 1 of the --pool-size Connections can be, the rest wait
+for a Connection unpinned, so keep --pool-size near the number of cores on 8.x. Connector/J 9.0+ uses ReentrantLock
+& doesn't pin.
+
+Collaborators: Jaylin Jack
+ */
+import java.io.*;
+import java.lang.reflect.*;
+import java.sql.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+public class VirtualThreadLoader {
+
+    private final LoaderOptions options;
+    private final DimensionCaches caches;
+
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+    // Content rows written so far. (For the Watch_History test rows, same as main)
+    private final AtomicLong contentWritten = new AtomicLong();
+    private final AtomicLong tasks = new AtomicLong();
+
+    public VirtualThreadLoader(LoaderOptions options, DimensionCaches caches) {
+        this.options = options;
+        this.caches = caches;
+    }
+
+    public void run() {
+        long start = System.nanoTime();
+
+        try (ConnectionPool pool = new ConnectionPool(options)) {
+            try (ConnectionPool.Lease lease = pool.borrow()) {
+                System.out.println("Connected");
+                // Fill the HashMaps with what's already in the DB, so known names never cost a SELECT.
+                caches.preload(lease.connection());
+            }
+
+            // --delta: only the main thread uses it. (See RowFingerprints)
+            RowFingerprints fingerprints = null;
+            if (options.deltaFile != null) {
+                fingerprints = RowFingerprints.open(options.deltaFile);
+            }
+
+            read(pool, fingerprints);
+
+            if (failure.get() != null) {
+                System.out.println("Virtual thread load stopped: " + failure.get());
+                return;
+            }
+
+            System.out.println("Virtual thread load finished, " + contentWritten.get() + " content rows written by " +
+                    tasks.get() + " tasks in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+
+            // Only remember the fingerprints once everything they stand for is in the DB.
+            if (fingerprints != null) {
+                fingerprints.report();
+                fingerprints.save();
+            }
+        } catch (SQLException | IOException e) {
+            e.printStackTrace();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Read every record & hand out the batches. Returns once every task is done.
+    private void read(ConnectionPool pool, RowFingerprints fingerprints) throws IOException, InterruptedException {
+        Semaphore inFlight = new Semaphore(Math.max(1, options.poolSize) * 2);
+
+        ExecutorService executor = newVirtualThreadExecutor();
+        try (CsvRecordSource reader = ReadData.openRecordSource(options)) {
+            // Skip the header (show_id, type, title ...)
+            reader.next();
+
+            List<String[]> batch = new ArrayList<>(options.taskBatch);
+            String[] values;
+            while ((values = reader.next()) != null && failure.get() == null) {
+                // In delta mode a record that is the same as last run is skipped.
+                if (fingerprints != null && !fingerprints.isChanged(values)) {
+                    continue;
+                }
+                batch.add(values);
+                if (batch.size() == options.taskBatch) {
+                    submit(executor, inFlight, pool, batch);
+                    batch = new ArrayList<>(options.taskBatch);
+                }
+            }
+            if (!batch.isEmpty() && failure.get() == null) {
+                submit(executor, inFlight, pool, batch);
+            }
+        } finally {
+            // Wait for every task, even when reading failed (they still hold Connections).
+            executor.shutdown();
+            while (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+                System.out.println("Still waiting for the last tasks");
+            }
+        }
+    }
+
+    // Executors.newVirtualThreadPerTaskExecutor(), Java 21+.
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException("--virtual-threads needs Java 21+, this is Java " +
+                    System.getProperty("java.version"));
+        } catch (IllegalAccessException | InvocationTargetException e) {
+            throw new IllegalStateException("Couldn't create the virtual thread executor", e);
+        }
+    }
+
+    private void submit(ExecutorService executor, Semaphore inFlight, ConnectionPool pool, List<String[]> batch)
+            throws InterruptedException {
+        inFlight.acquire();
+        tasks.incrementAndGet();
+        executor.execute(() -> {
+            try {
+                load(pool, batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Throwable e) {
+                if (failure.compareAndSet(null, e)) {
+                    e.printStackTrace();
+                }
+            } finally {
+                inFlight.release();
+            }
+        });
+    }
+
+    // 1 task: String[] -> CatalogRecord -> IDs -> Content & associative rows, on 1 borrowed Connection.
+    private void load(ConnectionPool pool, List<String[]> batch) throws SQLException, InterruptedException {
+        // No DB work, so it happens before a Connection is borrowed.
+        List<CatalogRecord> records = new ArrayList<>(batch.size());
+        for (String[] values : batch) {
+            CatalogRecord record = new CatalogRecord();
+            ReadData.normalizeRecord(values, record);
+            // IF Content contains all key 9 attributes then proceed.
+            if (record.isComplete()) {
+                records.add(record);
+            }
+        }
+        if (records.isEmpty()) {
+            return;
+        }
+
+        try (ConnectionPool.Lease lease = pool.borrow()) {
+            Connection conn = lease.connection();
+
+            // No lock, tasks only ever wait on each other for the same new name. (See DimensionResolver)
+            ReadData.resolveBatch(records, caches, options.resolveChunk, conn);
+
+            AssociativeWriters writers = lease.writers();
+            for (CatalogRecord record : records) {
+                boolean inserted = ReadData.insertContent(record.content, caches.content_ids, conn);
+
+                // I just simply want the tester user to watch half the content twice.
+                // Again this is for 11. testing.
+                //      -> Only for new Content, a re-run doesn't watch everything again.
+                if (contentWritten.incrementAndGet() > 4001 && inserted) {
+                    ReadData.insertWatch_History(record.getContentID(), 5, conn);
+                    ReadData.insertWatch_History(record.getContentID(), 5, conn);
+                }
+
+                ReadData.writeAssociations(record, writers);
+            }
+            // The Connection may go to a task with other contentIDs next, so nothing stays queued.
+            writers.flush();
+        }
+    }
+}
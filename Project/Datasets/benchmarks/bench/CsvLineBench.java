@@ -0,0 +1,162 @@
+/*
+File: CsvLineBench.java
+Description: Turning the whole CSV into fields, the old way & the way ReadData does it now.
+    -> legacySplit: BufferedReader.readLine, line.split(","), then every quoted value glued back together
+       with getEntireLine & trimQuotes (the loop ReadData.main used to have, without the DB work).
+    -> recordReader: CsvRecordReader, 1 pass over the characters.
+    -> byteReader / byteReaderScalar: ByteCsvReader over the UTF-8 bytes, with the vector & the scalar CsvByteScanner.
+       byteReader runs with the incubator module, it falls back to scalar when VectorCsvScanner isn't compiled.
+    -> recordReaderNormalize / byteReaderNormalize: the same + normalizeRecord of every record,
+       from the String[] & straight from the bytes (only the title, description & ID become Strings).
+1 operation = the whole file, so the score is files per second. Run with -prof gc for the bytes per file.
+
+Collaborators: Jaylin Jack
+ */
+package bench;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CsvLineBench {
+
+    @Param("Data.csv")
+    public String file;
+
+    private String csv;
+    private byte[] bytes;
+
+    @Setup
+    public void setup() throws IOException {
+        csv = Loader.readCsv(file);
+        bytes = csv.getBytes(java.nio.charset.StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public void legacySplit(Blackhole blackhole) throws IOException {
+        try (BufferedReader br = new BufferedReader(new StringReader(csv))) {
+            // Skip the header.
+            String line = br.readLine();
+            while ((line = br.readLine()) != null) {
+                String[] values = line.split(",");
+
+                for (int j = 0; j < values.length; j++) {
+                    String value = values[j];
+
+                    if (!value.isEmpty() && value.charAt(0) == '"') {
+                        // A quoted value was split at its commas, glue the pieces back together.
+                        List<String> l1 = new ArrayList<>();
+                        l1.add(value);
+                        while (!value.endsWith("\"") && j < values.length - 1) {
+                            value = values[++j];
+                            l1.add(value);
+                        }
+                        value = getEntireLine(l1);
+                    } else {
+                        value = trimQuotes(value);
+                    }
+                    blackhole.consume(value);
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public void recordReader(Blackhole blackhole) throws Throwable {
+        Object reader = (Object) Loader.NEW_CSV_READER.invokeExact((Reader) new StringReader(csv));
+        String[] values;
+        while ((values = (String[]) Loader.CSV_NEXT.invokeExact(reader)) != null) {
+            for (String value : values) {
+                blackhole.consume(value);
+            }
+        }
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+    public void byteReader(Blackhole blackhole) throws Throwable {
+        readBytes(blackhole, "auto");
+    }
+
+    @Benchmark
+    public void byteReaderScalar(Blackhole blackhole) throws Throwable {
+        readBytes(blackhole, "scalar");
+    }
+
+    private void readBytes(Blackhole blackhole, String scanner) throws Throwable {
+        Object reader = (Object) Loader.NEW_BYTE_READER.invokeExact((InputStream) new ByteArrayInputStream(bytes), scanner);
+        String[] values;
+        while ((values = (String[]) Loader.BYTE_NEXT.invokeExact(reader)) != null) {
+            for (String value : values) {
+                blackhole.consume(value);
+            }
+        }
+    }
+
+    @Benchmark
+    public void recordReaderNormalize(Blackhole blackhole) throws Throwable {
+        Object reader = (Object) Loader.NEW_CSV_READER.invokeExact((Reader) new StringReader(csv));
+        Object record = (Object) Loader.NEW_RECORD.invokeExact();
+        String[] values;
+        while ((values = (String[]) Loader.CSV_NEXT.invokeExact(reader)) != null) {
+            Loader.NORMALIZE.invokeExact(values, record);
+            blackhole.consume(record);
+            Loader.CLEAR_RECORD.invokeExact(record);
+        }
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+    public void byteReaderNormalize(Blackhole blackhole) throws Throwable {
+        Object reader = (Object) Loader.NEW_BYTE_READER.invokeExact((InputStream) new ByteArrayInputStream(bytes), "auto");
+        Object record = (Object) Loader.NEW_RECORD.invokeExact();
+        while ((boolean) Loader.NEXT_RECORD.invokeExact(reader)) {
+            Loader.NORMALIZE_BYTES.invokeExact(reader, record);
+            blackhole.consume(record);
+            Loader.CLEAR_RECORD.invokeExact(record);
+        }
+    }
+
+    /*
+        BELOW are the old ReadData functions, kept here as the baseline.
+     */
+
+    // Get all csv values depending on the columns.
+    private static String getEntireLine(List<String> l1) {
+        String cleanedWord = "";
+        for (int i = 0; i < l1.size(); i++) {
+            // Add the csv back to the previous csv value
+            if (i == l1.size() - 1) {
+                cleanedWord = cleanedWord.concat(l1.get(i));
+            } else {
+                // Include the ',' back into the sentence since we are not at the end of the sentence.
+                cleanedWord = cleanedWord.concat(l1.get(i) + ",");
+            }
+        }
+        return trimQuotes(cleanedWord);
+    }
+
+    // Function to trim the Quotes off csv values.
+    private static String trimQuotes(String str) {
+        if (str.length() < 2) {
+            return str;
+        }
+
+        if (str.startsWith("\"") && str.endsWith("\"")) {
+            str = str.substring(1, str.length() - 1);
+        } else if (str.startsWith("\"")) {
+            str = str.substring(1);
+        } else if (str.endsWith("\"")) {
+            str = str.substring(0, str.length() - 1);
+        }
+        return str;
+    }
+}
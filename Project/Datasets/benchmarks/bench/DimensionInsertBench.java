@@ -0,0 +1,110 @@
+/*
+File: DimensionInsertBench.java
+Description: Every get*ID_or_INSERT function against a database, with an empty HashMap so the DB is always asked.
+    -> selectExisting: the name is in the table, 1 SELECT (2A.).
+    -> insertNew: the name is new, SELECT + INSERT + generated key (3.).
+
+The database is H2 in memory in MySQL mode, standing in for MySQL so the benchmark runs anywhere.
+It measures the driver & statement work of the loader (StatementRegistry, binding, result sets),
+not MySQL's own speed, which needs the real server (run ReadData against it & read the LoaderMetrics summary).
+
+Collaborators: Jaylin Jack
+ */
+package bench;
+
+import java.lang.invoke.MethodHandle;
+import java.sql.*;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DimensionInsertBench {
+
+    // Names put in the table before each iteration, the SELECT path cycles through them.
+    static final int EXISTING = 1024;
+
+    // The tables of Databasemodel.sql that get*ID_or_INSERT writes to.
+    //  -> Every ID is INT here, Rating's TINYINT would run out of IDs during insertNew.
+    private static final String[] SCHEMA = {
+            "CREATE TABLE Content_Format (content_formatID INT PRIMARY KEY AUTO_INCREMENT, description VARCHAR(255) NOT NULL UNIQUE)",
+            "CREATE TABLE Rating (ratingID INT PRIMARY KEY AUTO_INCREMENT, name VARCHAR(100) NOT NULL UNIQUE)",
+            "CREATE TABLE Director (directorID INT PRIMARY KEY AUTO_INCREMENT, name VARCHAR(100) NOT NULL UNIQUE)",
+            "CREATE TABLE Actor (actorID INT PRIMARY KEY AUTO_INCREMENT, name VARCHAR(100) NOT NULL UNIQUE)",
+            "CREATE TABLE Tag (tagID INT PRIMARY KEY AUTO_INCREMENT, description VARCHAR(255) NOT NULL UNIQUE)",
+            "CREATE TABLE Country (countryID INT PRIMARY KEY AUTO_INCREMENT, name VARCHAR(100) NOT NULL UNIQUE)",
+            "CREATE TABLE `Release` (releaseID INT PRIMARY KEY AUTO_INCREMENT, release_date DATE NOT NULL, version INT DEFAULT 1)"
+    };
+
+    @Param({"Content_Format", "Rating", "Director", "Actor", "Tag", "Country", "Release"})
+    public String table;
+
+    private Connection conn;
+    private MethodHandle getIDOrInsert;
+
+    // Always empty when get*ID_or_INSERT is called, so step 1. never answers.
+    private final Map<String, Integer> map = new HashMap<>();
+
+    private final String[] existing = new String[EXISTING];
+    private int nextExisting = 0;
+    private int nextNew = 0;
+
+    @Setup(Level.Trial)
+    public void connect() throws SQLException {
+        conn = DriverManager.getConnection("jdbc:h2:mem:bench;MODE=MySQL;DB_CLOSE_DELAY=-1");
+        try (Statement statement = conn.createStatement()) {
+            for (String create : SCHEMA) {
+                statement.execute(create);
+            }
+        }
+        getIDOrInsert = Loader.GET_ID_OR_INSERT.get(table);
+    }
+
+    // Start every iteration from the same table, so insertNew doesn't slow down as it grows.
+    @Setup(Level.Iteration)
+    public void fill() throws Throwable {
+        try (Statement statement = conn.createStatement()) {
+            statement.execute("TRUNCATE TABLE " + (table.equals("Release") ? "`Release`" : table));
+        }
+        nextNew = EXISTING;
+        for (int i = 0; i < EXISTING; i++) {
+            existing[i] = name(i);
+            map.clear();
+            int id = (int) getIDOrInsert.invokeExact(map, existing[i], conn);
+            if (id == -1) {
+                throw new IllegalStateException("Couldn't insert " + existing[i] + " into " + table);
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void disconnect() throws Throwable {
+        // The statements are kept per Connection by the StatementRegistry.
+        Loader.RELEASE_STATEMENTS.invokeExact(conn);
+        conn.close();
+    }
+
+    // The i-th name of the table, Release takes dates.
+    private String name(int i) {
+        return table.equals("Release") ? LocalDate.ofEpochDay(i).toString() : table + " " + i;
+    }
+
+    @Benchmark
+    public int selectExisting() throws Throwable {
+        map.clear();
+        String name = existing[nextExisting++ & (EXISTING - 1)];
+        return (int) getIDOrInsert.invokeExact(map, name, conn);
+    }
+
+    @Benchmark
+    public int insertNew() throws Throwable {
+        map.clear();
+        return (int) getIDOrInsert.invokeExact(map, name(nextNew++), conn);
+    }
+}
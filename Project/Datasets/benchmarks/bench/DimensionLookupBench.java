@@ -0,0 +1,95 @@
+/*
+File: DimensionLookupBench.java
+Description: Name -> ID when the name is already known, the path almost every name of a re-run takes.
+    -> mapGet: ConcurrentHashMap.get of the interned name, nothing else.
+    -> resolverHit: DimensionResolver.resolve, the map plus the hit counter of LoaderMetrics.
+    -> intern: ReadData.DICTIONARY.intern of a fresh copy of the name (what the parser does per field).
+The maps are filled with the actor names of the CSV. Each operation looks up SAMPLE names, the score is per name.
+
+Collaborators: Jaylin Jack
+ */
+package bench;
+
+import java.sql.*;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DimensionLookupBench {
+
+    static final int SAMPLE = 1024;
+
+    // The cast column. (ReadData.cast)
+    private static final int CAST = 4;
+
+    @Param("Data.csv")
+    public String file;
+
+    private Object resolver;
+    private Map<String, Integer> map;
+
+    // Interned names (the parser's output) & copies that aren't (its input).
+    private final String[] names = new String[SAMPLE];
+    private final String[] copies = new String[SAMPLE];
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setup() throws Throwable {
+        resolver = Loader.resolver((Object) Loader.NEW_CACHES.invokeExact(), "actors");
+        map = (Map<String, Integer>) Loader.RESOLVER_MAP.invokeExact(resolver);
+
+        List<String> actors = new ArrayList<>();
+        for (String[] values : Loader.readRecords(file)) {
+            if (values.length > CAST) {
+                for (String actor : values[CAST].split(",")) {
+                    String name = actor.trim();
+                    if (!name.isEmpty()) {
+                        String interned = (String) Loader.INTERN.invokeExact(name);
+                        if (!map.containsKey(interned)) {
+                            map.put(interned, map.size() + 1);
+                            actors.add(interned);
+                        }
+                    }
+                }
+            }
+        }
+
+        Random random = new Random(42);
+        for (int i = 0; i < SAMPLE; i++) {
+            names[i] = actors.get(random.nextInt(actors.size()));
+            copies[i] = new String(names[i].toCharArray());
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SAMPLE)
+    public void mapGet(Blackhole blackhole) {
+        for (String name : names) {
+            blackhole.consume(map.get(name));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SAMPLE)
+    public void resolverHit(Blackhole blackhole) throws Throwable {
+        for (String name : names) {
+            // Every name is known, so the Connection is never used.
+            blackhole.consume((int) Loader.RESOLVE.invokeExact(resolver, name, (Connection) null));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SAMPLE)
+    public void intern(Blackhole blackhole) throws Throwable {
+        for (String copy : copies) {
+            blackhole.consume((String) Loader.INTERN.invokeExact(copy));
+        }
+    }
+}
@@ -0,0 +1,185 @@
+/*
+File: Loader.java
+Description: The ReadData functions the benchmarks call, as MethodHandles.
+JMH needs the benchmarks in a package, and a package can't import the classes of the default package
+(ReadData, CsvRecordReader ...), so they're looked up by name once when this class loads.
+    -> Every handle is static final, so the JIT inlines invokeExact like a direct call.
+    -> Types the benchmarks can't name (I.E. CsvRecordReader) are passed around as Object.
+
+Collaborators: Jaylin Jack
+ */
+package bench;
+
+import java.io.*;
+import java.lang.invoke.*;
+import java.sql.*;
+import java.util.*;
+
+final class Loader {
+
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.publicLookup();
+
+    // String getDateFormatted(String)
+    static final MethodHandle GET_DATE_FORMATTED = findStatic("ReadData", "getDateFormatted",
+            MethodType.methodType(String.class, String.class));
+    // int randomGenre(int)
+    static final MethodHandle RANDOM_GENRE = findStatic("ReadData", "randomGenre",
+            MethodType.methodType(int.class, int.class));
+    // int ReleaseDates.parse(CharSequence), called with a String.
+    static final MethodHandle PARSE_DATE = findStatic("ReleaseDates", "parse",
+            MethodType.methodType(int.class, CharSequence.class)).asType(MethodType.methodType(int.class, String.class));
+
+    // new CsvRecordReader(Reader) & its next(), the reader typed as Object.
+    static final MethodHandle NEW_CSV_READER = constructor("CsvRecordReader", Reader.class);
+    static final MethodHandle CSV_NEXT = findVirtual("CsvRecordReader", "next", MethodType.methodType(String[].class));
+
+    // new ByteCsvReader(InputStream, CsvByteScanner.create(String)) & its next(), the reader typed as Object.
+    static final MethodHandle NEW_BYTE_READER = byteReader();
+    static final MethodHandle BYTE_NEXT = findVirtual("ByteCsvReader", "next", MethodType.methodType(String[].class));
+    static final MethodHandle NEXT_RECORD = findVirtual("ByteCsvReader", "nextRecord", MethodType.methodType(boolean.class));
+
+    // new CatalogRecord() & its clear(), normalizeRecord of a String[] & of a ByteCsvReader.
+    static final MethodHandle NEW_RECORD = constructor("CatalogRecord");
+    static final MethodHandle CLEAR_RECORD = findVirtual("CatalogRecord", "clear", MethodType.methodType(void.class));
+    static final MethodHandle NORMALIZE = normalizeRecord(null);
+    static final MethodHandle NORMALIZE_BYTES = normalizeRecord("ByteCsvReader");
+
+    // new DimensionCaches(), resolve(name, conn) & getMap() of its DimensionResolvers.
+    static final MethodHandle NEW_CACHES = constructor("DimensionCaches");
+    static final MethodHandle RESOLVE = findVirtual("DimensionResolver", "resolve",
+            MethodType.methodType(int.class, String.class, Connection.class));
+    static final MethodHandle RESOLVER_MAP = findVirtual("DimensionResolver", "getMap", MethodType.methodType(Map.class));
+
+    // ReadData.DICTIONARY.intern(String)
+    static final MethodHandle INTERN = MethodHandles.insertArguments(
+            findVirtual("StringDictionary", "intern", MethodType.methodType(String.class, String.class)),
+            0, staticField("ReadData", "DICTIONARY"));
+
+    // StatementRegistry.release(Connection)
+    static final MethodHandle RELEASE_STATEMENTS = findStatic("StatementRegistry", "release",
+            MethodType.methodType(void.class, Connection.class));
+
+    // int get*ID_or_INSERT(Map<String, Integer>, String, Connection) of each table.
+    static final Map<String, MethodHandle> GET_ID_OR_INSERT = new LinkedHashMap<>();
+
+    static {
+        MethodType getID = MethodType.methodType(int.class, Map.class, String.class, Connection.class);
+        GET_ID_OR_INSERT.put("Content_Format", findStatic("ReadData", "getContentFormatID_or_INSERT", getID));
+        GET_ID_OR_INSERT.put("Rating", findStatic("ReadData", "getRatingID_or_INSERT", getID));
+        GET_ID_OR_INSERT.put("Director", findStatic("ReadData", "getDirectorID_or_INSERT", getID));
+        GET_ID_OR_INSERT.put("Actor", findStatic("ReadData", "getActorID_or_INSERT", getID));
+        GET_ID_OR_INSERT.put("Tag", findStatic("ReadData", "getTagID_or_INSERT", getID));
+        GET_ID_OR_INSERT.put("Country", findStatic("ReadData", "getCountryID_or_INSERT", getID));
+        // Every Release is version 1, same as DimensionCaches.
+        GET_ID_OR_INSERT.put("Release", MethodHandles.insertArguments(findStatic("ReadData", "getRelease_or_INSERT",
+                MethodType.methodType(int.class, Map.class, String.class, String.class, Connection.class)), 2, "1"));
+    }
+
+    private Loader() {
+    }
+
+    // The DimensionResolver of a table, I.E. "actors" -> DimensionCaches.actors.
+    static Object resolver(Object caches, String field) {
+        try {
+            return caches.getClass().getField(field).get(caches);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Class<?> type(String name) throws ClassNotFoundException {
+        return Class.forName(name, true, Loader.class.getClassLoader());
+    }
+
+    // Every class of the default package typed as Object, so invokeExact can be called without naming it.
+    private static MethodHandle erase(MethodHandle handle) {
+        MethodType type = handle.type();
+        for (int i = 0; i < type.parameterCount(); i++) {
+            if (isLoaderClass(type.parameterType(i))) {
+                type = type.changeParameterType(i, Object.class);
+            }
+        }
+        if (isLoaderClass(type.returnType())) {
+            type = type.changeReturnType(Object.class);
+        }
+        return handle.asType(type);
+    }
+
+    private static boolean isLoaderClass(Class<?> type) {
+        return !type.isPrimitive() && !type.isArray() && type.getPackageName().isEmpty();
+    }
+
+    private static MethodHandle findStatic(String className, String name, MethodType type) {
+        try {
+            return erase(LOOKUP.findStatic(type(className), name, type));
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private static MethodHandle findVirtual(String className, String name, MethodType type) {
+        try {
+            return erase(LOOKUP.findVirtual(type(className), name, type));
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private static MethodHandle constructor(String className, Class<?>... parameters) {
+        try {
+            return erase(LOOKUP.findConstructor(type(className), MethodType.methodType(void.class, parameters)));
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private static MethodHandle byteReader() {
+        try {
+            Class<?> scanner = type("CsvByteScanner");
+            MethodHandle create = LOOKUP.findStatic(scanner, "create", MethodType.methodType(scanner, String.class));
+            MethodHandle reader = LOOKUP.findConstructor(type("ByteCsvReader"),
+                    MethodType.methodType(void.class, InputStream.class, scanner));
+            return erase(MethodHandles.filterArguments(reader, 1, create));
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    // normalizeRecord(<source>, CatalogRecord), a String[] when source is null.
+    private static MethodHandle normalizeRecord(String source) {
+        try {
+            Class<?> sourceType = source == null ? String[].class : type(source);
+            return erase(LOOKUP.findStatic(type("ReadData"), "normalizeRecord",
+                    MethodType.methodType(void.class, sourceType, type("CatalogRecord"))));
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private static Object staticField(String className, String name) {
+        try {
+            return type(className).getField(name).get(null);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    // The whole CSV as 1 String, so reading the file isn't part of what's measured.
+    static String readCsv(String file) throws IOException {
+        return new String(java.nio.file.Files.readAllBytes(java.nio.file.Paths.get(file)), java.nio.charset.StandardCharsets.UTF_8);
+    }
+
+    // Every record of the CSV (header skipped), parsed by CsvRecordReader.
+    static List<String[]> readRecords(String file) throws Throwable {
+        List<String[]> records = new ArrayList<>();
+        try (Reader in = new StringReader(readCsv(file))) {
+            Object reader = (Object) NEW_CSV_READER.invokeExact(in);
+            // Skip the header (show_id, type, title ...)
+            String[] values = (String[]) CSV_NEXT.invokeExact(reader);
+            while ((values = (String[]) CSV_NEXT.invokeExact(reader)) != null) {
+                records.add(values);
+            }
+        }
+        return records;
+    }
+}
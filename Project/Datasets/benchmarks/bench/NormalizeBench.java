@@ -0,0 +1,125 @@
+/*
+File: NormalizeBench.java
+Description: The per field work of normalizeRecord, on the values of the CSV.
+    -> getDateFormatted ("September 25, 2021" -> "2021-09-25") & ReleaseDates.parse on its own,
+       next to the old substring/switch getDateFormatted as the baseline.
+    -> randomGenre of every contentID.
+Each operation goes over SAMPLE values, the score is per value. Run with -prof gc for the bytes per value.
+
+Collaborators: Jaylin Jack
+ */
+package bench;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NormalizeBench {
+
+    // Values per operation.
+    static final int SAMPLE = 1024;
+
+    // Columns of the CSV. (ReadData.dateAdded & ReadData.contentID)
+    private static final int DATE_ADDED = 6;
+    private static final int SHOW_ID = 0;
+
+    @Param("Data.csv")
+    public String file;
+
+    private final String[] dates = new String[SAMPLE];
+    private final int[] contentIDs = new int[SAMPLE];
+
+    @Setup
+    public void setup() throws Throwable {
+        List<String> allDates = new ArrayList<>();
+        List<Integer> allIDs = new ArrayList<>();
+        for (String[] values : Loader.readRecords(file)) {
+            if (values.length > DATE_ADDED && !values[DATE_ADDED].trim().isEmpty()) {
+                allDates.add(values[DATE_ADDED]);
+            }
+            // "s123" -> 123 (truncateID)
+            allIDs.add(Integer.parseInt(values[SHOW_ID].substring(1)));
+        }
+
+        // The same values every run, spread over the whole file.
+        Random random = new Random(42);
+        for (int i = 0; i < SAMPLE; i++) {
+            dates[i] = allDates.get(random.nextInt(allDates.size()));
+            contentIDs[i] = allIDs.get(random.nextInt(allIDs.size()));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SAMPLE)
+    public void getDateFormatted(Blackhole blackhole) throws Throwable {
+        for (String date : dates) {
+            blackhole.consume((String) Loader.GET_DATE_FORMATTED.invokeExact(date));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SAMPLE)
+    public void parseReleaseDate(Blackhole blackhole) throws Throwable {
+        for (String date : dates) {
+            blackhole.consume((int) Loader.PARSE_DATE.invokeExact(date));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SAMPLE)
+    public void legacyDateFormatted(Blackhole blackhole) {
+        for (String date : dates) {
+            blackhole.consume(legacyDateFormatted(date));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SAMPLE)
+    public void randomGenre(Blackhole blackhole) throws Throwable {
+        for (int contentID : contentIDs) {
+            blackhole.consume((int) Loader.RANDOM_GENRE.invokeExact(contentID));
+        }
+    }
+
+    // The way getDateFormatted used to do it, kept here as the baseline.
+    private static String legacyDateFormatted(String date) {
+        date = date.trim();
+
+        int comma = date.indexOf(',');
+        String year = date.substring(comma + 1).trim();
+        date = date.substring(0, comma);
+
+        int space = date.lastIndexOf(' ');
+        String day = date.substring(space + 1);
+        if (day.length() == 1) {
+            day = "0" + day;
+        }
+
+        return year + "-" + legacyMonth(date.substring(0, space)) + "-" + day;
+    }
+
+    private static String legacyMonth(String month) {
+        switch (month.trim()) {
+            case "January": return "01";
+            case "February": return "02";
+            case "March": return "03";
+            case "April": return "04";
+            case "May": return "05";
+            case "June": return "06";
+            case "July": return "07";
+            case "August": return "08";
+            case "September": return "09";
+            case "October": return "10";
+            case "November": return "11";
+            case "December": return "12";
+            default: return "Not a month";
+        }
+    }
+}
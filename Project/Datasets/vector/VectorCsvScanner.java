@@ -0,0 +1,110 @@
+/*
+File: VectorCsvScanner.java
+Description: CsvByteScanner that looks at a whole block of bytes per step with the Vector API (jdk.incubator.vector).
+The block is the widest the CPU has: 32 bytes with AVX2, 64 with AVX-512 (16 on SSE / NEON).
+
+Per block:
+    1. Compare every byte with '"', ',' & '\n' at once -> 1 bit per byte for each (a long, bit i = byte i).
+    2. Prefix XOR of the quote bits: bit i is set when an odd number of '"' came before it (in the block),
+       I.E. byte i is inside quotes. Flipped when the block itself started inside quotes.
+    3. Counting quotes is only right when every quote that opens is at the start of a field
+       (after ',', a line end, the quote that just closed, or at the start of a record).
+       A block where 1 doesn't (a stray '"' like 5'10") goes through the scalar loop instead, which knows the states.
+    4. The delimiters are the ',' & '\n' bits NOT inside quotes, read out lowest bit first.
+    5. The state after the block's last byte is carried to the next block.
+Blocks with none of the 3 characters (most of a description) cost 3 compares & nothing else.
+The bytes after the last whole block go through the scalar loop of CsvByteScanner.
+
+Not compiled with the rest of the loader since javac needs the incubator module for it. From Project/Datasets:
+    javac -d out *.java
+    javac --add-modules jdk.incubator.vector -cp out -d out vector/VectorCsvScanner.java
+    java --add-modules jdk.incubator.vector -cp out ReadData --byte-reader
+Without the 2nd step (or the --add-modules when running) CsvByteScanner.create() falls back to the scalar scanner.
+
+Collaborators: Jaylin Jack
+ */
+import jdk.incubator.vector.*;
+
+public class VectorCsvScanner extends CsvByteScanner {
+
+    private static final VectorSpecies<Byte> SPECIES = ByteVector.SPECIES_PREFERRED;
+    private static final int LANES = SPECIES.length();
+
+    @Override
+    public int scan(byte[] buffer, int from, int to, int[] delimiters) {
+        int count = 0;
+
+        int i = from;
+        int bound = from + SPECIES.loopBound(to - from);
+        for (; i < bound; i += LANES) {
+            // 1.
+            ByteVector block = ByteVector.fromArray(SPECIES, buffer, i);
+            long quotes = block.eq((byte) '"').toLong();
+            long ends = block.eq((byte) ',').or(block.eq((byte) '\n')).toLong();
+            if ((quotes | ends) == 0) {
+                state = afterPlainBytes(buffer[i + LANES - 1]);
+                continue;
+            }
+
+            // 2. All 1s while inside quotes, so it can be XORed onto a whole block.
+            long inside = prefixXor(quotes) ^ (state == QUOTED ? -1L : 0L);
+
+            // 3. The quotes after which we're inside are the ones that open.
+            long opening = quotes & inside;
+            if (opening != 0) {
+                long lineEnds = ends | block.eq((byte) '\r').toLong();
+                long fieldStarts = ((lineEnds | quotes) << 1) | (state == FIELD_START || state == QUOTE_IN_QUOTED ? 1 : 0);
+                if ((opening & ~fieldStarts) != 0) {
+                    count = scanBytes(buffer, i, i + LANES, delimiters, count);
+                    continue;
+                }
+            }
+
+            // 4.
+            long found = ends & ~inside;
+            while (found != 0) {
+                delimiters[count++] = i + Long.numberOfTrailingZeros(found);
+                found &= found - 1;
+            }
+
+            // 5.
+            if ((inside >>> (LANES - 1) & 1) != 0) {
+                state = QUOTED;
+            } else if ((quotes >>> (LANES - 1) & 1) != 0) {
+                // The quote that just closed.
+                state = QUOTE_IN_QUOTED;
+            } else if ((ends >>> (LANES - 1) & 1) != 0 || buffer[i + LANES - 1] == '\r') {
+                state = FIELD_START;
+            } else {
+                // Outside quotes now, even if the block started inside them.
+                state = UNQUOTED;
+            }
+        }
+
+        return scanBytes(buffer, i, to, delimiters, count);
+    }
+
+    // The state after a block that ends with 'last' & has no '"' or delimiter that changes it.
+    private int afterPlainBytes(byte last) {
+        if (state == QUOTED) {
+            return QUOTED;
+        }
+        return last == '\r' ? FIELD_START : UNQUOTED;
+    }
+
+    // Bit i = XOR of bits 0..i, I.E. 1 when an odd number of quotes are at or before byte i.
+    private static long prefixXor(long bits) {
+        bits ^= bits << 1;
+        bits ^= bits << 2;
+        bits ^= bits << 4;
+        bits ^= bits << 8;
+        bits ^= bits << 16;
+        bits ^= bits << 32;
+        return bits;
+    }
+
+    @Override
+    public String getName() {
+        return "vector (" + LANES + " byte lanes)";
+    }
+}